@@ -0,0 +1,33 @@
+import bench.Workload;
+
+/**
+ * Plays out a silent dealer's hand from a six deck shoe.
+ *
+ * @author gunnarvonbergen
+ *
+ */
+public class DealerPlayWorkload implements Workload {
+
+    private final Player player = new Player("Bench", 0, 0, 0);
+
+    private final Dealer dealer = new Dealer("Dealer", 0, 0, 0);
+
+    private Shoe shoe;
+
+    @Override
+    public void setup(int size) {
+        shoe = new Shoe(6, 0.75, 21);
+        player.setGameListener(GameListener.NONE);
+        dealer.setGameListener(GameListener.NONE);
+    }
+
+    @Override
+    public Object run() {
+        shoe.shuffleIfNeeded();
+        dealer.getHand().clear();
+        dealer.setBusted(false);
+        dealer.drawCard(shoe);
+        dealer.playHand(shoe, player);
+        return dealer.calculateHandValue();
+    }
+}
@@ -0,0 +1,19 @@
+import bench.Workload;
+
+/**
+ * Builds a new 52 card deck.
+ *
+ * @author gunnarvonbergen
+ *
+ */
+public class DeckConstructionWorkload implements Workload {
+
+    @Override
+    public void setup(int size) {
+    }
+
+    @Override
+    public Object run() {
+        return new Deck();
+    }
+}
@@ -0,0 +1,36 @@
+import java.util.ArrayList;
+
+import bench.Workload;
+
+/**
+ * Refills a deck and draws every card from it, which is what a single deck
+ * game does over the course of a deck.
+ *
+ * @author gunnarvonbergen
+ *
+ */
+public class DeckDrawWorkload implements Workload {
+
+    private final Deck deck = new Deck(21);
+
+    private Card[] fullDeck;
+
+    @Override
+    public void setup(int size) {
+        deck.shuffle();
+        fullDeck = deck.getCards().toArray(new Card[0]);
+    }
+
+    @Override
+    public Object run() {
+        ArrayList<Card> cards = deck.getCards();
+        for (Card card : fullDeck) {
+            cards.add(card);
+        }
+        Card last = null;
+        for (int i = 0; i < fullDeck.length; i++) {
+            last = deck.draw();
+        }
+        return last;
+    }
+}
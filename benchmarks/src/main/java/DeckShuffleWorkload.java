@@ -0,0 +1,23 @@
+import bench.Workload;
+
+/**
+ * Shuffles a 52 card deck.
+ *
+ * @author gunnarvonbergen
+ *
+ */
+public class DeckShuffleWorkload implements Workload {
+
+    private Deck deck;
+
+    @Override
+    public void setup(int size) {
+        deck = new Deck(21);
+    }
+
+    @Override
+    public Object run() {
+        deck.shuffle();
+        return deck.getCards().get(0);
+    }
+}
@@ -0,0 +1,26 @@
+import bench.Workload;
+
+/**
+ * Plays a whole hand, player and dealer, with basic strategy and no console
+ * output.
+ *
+ * @author gunnarvonbergen
+ *
+ */
+public class FullHandWorkload implements Workload {
+
+    private Simulator simulator;
+
+    private final SimulationResult result = new SimulationResult();
+
+    @Override
+    public void setup(int size) {
+        simulator = new Simulator(21, BasicStrategy.INSTANCE);
+    }
+
+    @Override
+    public Object run() {
+        simulator.playHand(result);
+        return result;
+    }
+}
@@ -0,0 +1,31 @@
+import bench.Workload;
+
+/**
+ * Adds a card to a three card hand, reads the hand's value and removes the
+ * card again.
+ *
+ * @author gunnarvonbergen
+ *
+ */
+public class HandValueWorkload implements Workload {
+
+    private final Player player = new Player("Bench", 0, 0, 0);
+
+    private int next;
+
+    @Override
+    public void setup(int size) {
+        player.getHand().add(Card.valueOf("Ace", "Hearts"));
+        player.getHand().add(Card.valueOf("4", "Clubs"));
+        player.getHand().add(Card.valueOf("2", "Spades"));
+    }
+
+    @Override
+    public Object run() {
+        next = (next + 1) % Card.DECK_SIZE;
+        player.getHand().add(Card.valueOf(next));
+        int value = player.calculateHandValue();
+        player.getHand().remove(player.getHand().size() - 1);
+        return value;
+    }
+}
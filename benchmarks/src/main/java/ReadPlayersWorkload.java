@@ -0,0 +1,31 @@
+import java.io.File;
+
+import bench.Workload;
+
+/**
+ * Loads every saved player profile with FrontEnd.readPlayers().
+ *
+ * @author gunnarvonbergen
+ *
+ */
+public class ReadPlayersWorkload implements Workload {
+
+    private File file;
+
+    @Override
+    public void setup(int size) throws Exception {
+        file = File.createTempFile("players", ".dat");
+        FrontEnd.writePlayers(file.getPath(),
+                WritePlayersWorkload.createPlayers(size));
+    }
+
+    @Override
+    public Object run() {
+        return FrontEnd.readPlayers(file.getPath());
+    }
+
+    @Override
+    public void tearDown() {
+        file.delete();
+    }
+}
@@ -0,0 +1,24 @@
+import bench.Workload;
+
+/**
+ * Draws a card from a six deck shoe, shuffling whenever the cut card is
+ * reached.
+ *
+ * @author gunnarvonbergen
+ *
+ */
+public class ShoeDrawWorkload implements Workload {
+
+    private Shoe shoe;
+
+    @Override
+    public void setup(int size) {
+        shoe = new Shoe(6, 0.75, 21);
+    }
+
+    @Override
+    public Object run() {
+        shoe.shuffleIfNeeded();
+        return shoe.draw();
+    }
+}
@@ -0,0 +1,48 @@
+import java.io.File;
+import java.util.ArrayList;
+
+import bench.Workload;
+
+/**
+ * Saves a list of player profiles with FrontEnd.writePlayers().
+ *
+ * @author gunnarvonbergen
+ *
+ */
+public class WritePlayersWorkload implements Workload {
+
+    private File file;
+
+    private ArrayList<Player> players;
+
+    /**
+     * Creates the given number of players with different names and stats.
+     *
+     * @param size the number of players.
+     * @return an array list of new players.
+     */
+    static ArrayList<Player> createPlayers(int size) {
+        ArrayList<Player> players = new ArrayList<>(size);
+        for (int i = 0; i < size; i++) {
+            players.add(new Player("player" + i, i % 97, i % 89, i % 13));
+        }
+        return players;
+    }
+
+    @Override
+    public void setup(int size) throws Exception {
+        file = File.createTempFile("players", ".dat");
+        players = createPlayers(size);
+    }
+
+    @Override
+    public Object run() {
+        FrontEnd.writePlayers(file.getPath(), players);
+        return file.length();
+    }
+
+    @Override
+    public void tearDown() {
+        file.delete();
+    }
+}
@@ -0,0 +1,54 @@
+package bench;
+
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * Measures the card, deck, hand and dealer operations that every hand of the
+ * game goes through.
+ *
+ * @author gunnarvonbergen
+ *
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class GameBenchmark {
+
+    @Param({ "DeckConstruction", "DeckShuffle", "DeckDraw", "ShoeDraw",
+            "HandValue", "DealerPlay", "FullHand" })
+    public String workload;
+
+    private Workload target;
+
+    @Setup
+    public void setup() throws Exception {
+        target = Workload.load(workload);
+        target.setup(0);
+    }
+
+    @Benchmark
+    public Object run() throws Exception {
+        return target.run();
+    }
+
+    @TearDown
+    public void tearDown() throws Exception {
+        target.tearDown();
+    }
+}
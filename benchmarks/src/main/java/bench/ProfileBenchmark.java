@@ -0,0 +1,56 @@
+package bench;
+
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * Measures saving and loading player profiles with different numbers of
+ * stored profiles.
+ *
+ * @author gunnarvonbergen
+ *
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 2, time = 2)
+@Measurement(iterations = 3, time = 2)
+@Fork(value = 1, jvmArgsAppend = "-Xmx4g")
+public class ProfileBenchmark {
+
+    @Param({ "WritePlayers", "ReadPlayers" })
+    public String workload;
+
+    @Param({ "1000", "100000", "1000000" })
+    public int profiles;
+
+    private Workload target;
+
+    @Setup
+    public void setup() throws Exception {
+        target = Workload.load(workload);
+        target.setup(profiles);
+    }
+
+    @Benchmark
+    public Object run() throws Exception {
+        return target.run();
+    }
+
+    @TearDown
+    public void tearDown() throws Exception {
+        target.tearDown();
+    }
+}
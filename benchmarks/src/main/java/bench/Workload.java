@@ -0,0 +1,52 @@
+package bench;
+
+/**
+ * A workload is one operation of the game that is measured by a benchmark.
+ * The game classes live in the default package, which JMH benchmarks cannot
+ * use and named packages cannot import, so each workload is written in the
+ * default package and loaded by name through this interface.
+ *
+ * @author gunnarvonbergen
+ *
+ */
+public interface Workload {
+
+    /**
+     * Loads the workload class named {@code name + "Workload"} from the
+     * default package.
+     *
+     * @param name the name of the workload, for example "DeckShuffle".
+     * @return a new instance of the workload.
+     * @throws ReflectiveOperationException if the workload cannot be created.
+     */
+    public static Workload load(String name)
+            throws ReflectiveOperationException {
+        return (Workload) Class.forName(name + "Workload")
+                .getDeclaredConstructor().newInstance();
+    }
+
+    /**
+     * Prepares everything the workload needs before it is measured.
+     *
+     * @param size the number of items to work on, if the workload has a size.
+     * @throws Exception if the workload cannot be prepared.
+     */
+    public void setup(int size) throws Exception;
+
+    /**
+     * Runs the measured operation once.
+     *
+     * @return a value derived from the operation, consumed by JMH so that the
+     *         work cannot be optimised away.
+     * @throws Exception if the operation fails.
+     */
+    public Object run() throws Exception;
+
+    /**
+     * Cleans up after the workload, for example by deleting temporary files.
+     *
+     * @throws Exception if cleaning up fails.
+     */
+    public default void tearDown() throws Exception {
+    }
+}
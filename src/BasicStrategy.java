@@ -0,0 +1,69 @@
+/**
+ * The basic strategy hits or stands using the standard hit/stand chart for
+ * the player's total, whether the hand is soft, and the dealer's up card. The
+ * chart is built once into lookup tables so that each decision is just two
+ * array reads.
+ * 
+ * @author gunnarvonbergen
+ *
+ */
+public class BasicStrategy implements Strategy {
+
+    /**
+     * Basic strategy has no state, so one instance can be shared everywhere.
+     */
+    public static final BasicStrategy INSTANCE = new BasicStrategy();
+
+    // Indexed by [hand total][dealer up card value], aces are 1.
+    private static final boolean[][] HARD_HIT = new boolean[22][11];
+
+    private static final boolean[][] SOFT_HIT = new boolean[22][11];
+
+    static {
+        for (int up = 1; up <= 10; up++) {
+            boolean dealerWeak = up >= 2 && up <= 6;
+            for (int total = 0; total <= 21; total++) {
+                // Hard totals: always hit 11 or less, stand on 17 or more.
+                if (total <= 11) {
+                    HARD_HIT[total][up] = true;
+                } else if (total == 12) {
+                    HARD_HIT[total][up] = up < 4 || up > 6;
+                } else if (total <= 16) {
+                    HARD_HIT[total][up] = !dealerWeak;
+                }
+
+                // Soft totals: hit soft 17 or less, soft 18 against 9-A.
+                if (total <= 17) {
+                    SOFT_HIT[total][up] = true;
+                } else if (total == 18) {
+                    SOFT_HIT[total][up] = up >= 9 || up == 1;
+                }
+            }
+        }
+    }
+
+    /**
+     * Looks up the chart entry for the player's hand and the dealer's up card.
+     * 
+     * @param player       the player whose hand is being decided on.
+     * @param dealerUpCard the dealer's up card, treated as a ten if unknown.
+     * @return true if the chart says to hit.
+     */
+    @Override
+    public boolean decideToHit(Player player, Card dealerUpCard) {
+        int total = player.calculateHandValue();
+        if (total > 21) {
+            return false;
+        }
+        int up = dealerUpCard == null ? 10 : dealerUpCard.getValue();
+        if (player.isSoft()) {
+            return SOFT_HIT[total][up];
+        }
+        return HARD_HIT[total][up];
+    }
+
+    @Override
+    public String toString() {
+        return "Basic strategy";
+    }
+}
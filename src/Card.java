@@ -12,6 +12,47 @@ import java.io.Serializable;
 public class Card implements Cloneable, Serializable {
 
     private static final long serialVersionUID = 1L;
+
+    /**
+     * The number of distinct cards in a standard deck.
+     */
+    public static final int DECK_SIZE = 52;
+
+    /**
+     * The number of ranks in each suit.
+     */
+    public static final int RANK_COUNT = 13;
+
+    /**
+     * The number of distinct point values, from aces (1) to tens and face
+     * cards (10).
+     */
+    public static final int VALUE_COUNT = 10;
+
+    // Rank and suit names in code order. A card's code is suit * 13 + rank.
+    private static final String[] RANKS = { "Ace", "2", "3", "4", "5", "6",
+            "7", "8", "9", "10", "Jack", "Queen", "King" };
+
+    private static final String[] SUITS = { "Hearts", "Diamonds", "Spades",
+            "Clubs" };
+
+    // Lookup tables indexed by rank.
+    private static final int[] VALUES = { 1, 2, 3, 4, 5, 6, 7, 8, 9, 10, 10,
+            10, 10 };
+
+    private static final String[] RANK_SYMBOLS = { "A", "2", "3", "4", "5",
+            "6", "7", "8", "9", "T", "J", "Q", "K" };
+
+    // The 52 shared card objects, indexed by code.
+    private static final Card[] CARDS = new Card[DECK_SIZE];
+
+    static {
+        for (int code = 0; code < DECK_SIZE; code++) {
+            CARDS[code] = new Card(RANKS[code % RANK_COUNT],
+                    SUITS[code / RANK_COUNT]);
+        }
+    }
+
     /*
      * Represents the suit of the card
      */
@@ -22,15 +63,24 @@ public class Card implements Cloneable, Serializable {
      */
     private final String RANK; // "1-10, Jack, Queen, King, Ace".
 
+    /*
+     * The rank and suit packed into one number from 0 to 51.
+     */
+    private final byte CODE;
+
     /**
-     * Standard constructor for a card object.
+     * Standard constructor for a card object. Cards are immutable, so the
+     * shared instances from valueOf() should be preferred.
      * 
      * @param rank the rank of the card.
      * @param suit the suit of the card.
+     * @throws IllegalArgumentException if the rank or suit is not recognized.
      */
     public Card(String rank, String suit) {
-        this.RANK = rank;
-        this.SUIT = suit;
+        this.CODE = (byte) (indexOf(SUITS, suit) * RANK_COUNT
+                + indexOf(RANKS, rank));
+        this.RANK = RANKS[CODE % RANK_COUNT];
+        this.SUIT = SUITS[CODE / RANK_COUNT];
     }
 
     /**
@@ -41,6 +91,58 @@ public class Card implements Cloneable, Serializable {
     public Card(Card other) {
         this.RANK = other.RANK;
         this.SUIT = other.SUIT;
+        this.CODE = other.CODE;
+    }
+
+    /**
+     * Returns the shared card object for a card code.
+     * 
+     * @param code the card's code, from 0 to 51.
+     * @return the shared card object with that code.
+     */
+    public static Card valueOf(int code) {
+        return CARDS[code];
+    }
+
+    /**
+     * Returns the shared card object for a rank and suit.
+     * 
+     * @param rank the rank of the card.
+     * @param suit the suit of the card.
+     * @return the shared card object with that rank and suit.
+     */
+    public static Card valueOf(String rank, String suit) {
+        return CARDS[indexOf(SUITS, suit) * RANK_COUNT + indexOf(RANKS, rank)];
+    }
+
+    /**
+     * Returns the point value of a card code without looking up the card.
+     * Aces are worth 1, face cards 10.
+     * 
+     * @param code the card's code, from 0 to 51.
+     * @return the point value of the card.
+     */
+    public static int valueOfCode(int code) {
+        return VALUES[code % RANK_COUNT];
+    }
+
+    private static int indexOf(String[] names, String name) {
+        for (int i = 0; i < names.length; i++) {
+            if (names[i].equals(name)) {
+                return i;
+            }
+        }
+        throw new IllegalArgumentException("Unknown card: " + name);
+    }
+
+    /**
+     * Returns the card packed into a single number. The code is the suit index
+     * times 13 plus the rank index, where aces are rank 0 and kings rank 12.
+     * 
+     * @return the card's code from 0 to 51.
+     */
+    public int getCode() {
+        return CODE;
     }
 
     /**
@@ -67,17 +169,10 @@ public class Card implements Cloneable, Serializable {
      * 1. The calcuations for aces occur during the scoring/hand value counting
      * process.
      * 
-     * @return
+     * @return the point value of the card.
      */
     public int getValue() {
-        if (isAce()) {
-            return 1; // Ace calculations will occur elsewhere
-        } else if (RANK.equals("King") || RANK.equals("Queen")
-                || RANK.equals("Jack")) {
-            return 10;
-        } else {
-            return Integer.parseInt(RANK);
-        }
+        return VALUES[CODE % RANK_COUNT]; // Ace calculations occur elsewhere
     }
 
     /**
@@ -87,46 +182,16 @@ public class Card implements Cloneable, Serializable {
      * @return a string representing the rank of a card in a single character.
      */
     public String convertCardValue() {
-        if (RANK.equals("King")) {
-            return "K";
-        } else if (RANK.equals("Queen")) {
-            return "Q";
-        } else if (RANK.equals("Jack")) {
-            return "J";
-        } else if (RANK.equals("Ace")) {
-            return "A";
-        } else if (RANK.equals("10")) {
-            return "T";
-        } else {
-            return RANK;
-        }
+        return RANK_SYMBOLS[CODE % RANK_COUNT];
     }
 
     /**
      * Displays a nicely formatted version of a card object.
+     * 
+     * @see CardRenderer for drawing several cards side by side.
      */
     public void displayCard() {
-        String suitSymbol = "";
-
-        // Set suit symbol based on the suit parameter
-        if (SUIT.equals("Spades")) {
-            suitSymbol = "♠";
-        } else if (SUIT.equals("Hearts")) {
-            suitSymbol = "♥";
-        } else if (SUIT.equals("Diamonds")) {
-            suitSymbol = "♦";
-        } else if (SUIT.equals("Clubs")) {
-            suitSymbol = "♣";
-        }
-
-        // Print the card object
-        System.out.println("┌───────┐");
-        System.out.println("│ " + convertCardValue() + "     │");
-        System.out.println("│       │");
-        System.out.println("│   " + suitSymbol + "   │");
-        System.out.println("│       │");
-        System.out.println("│     " + convertCardValue() + " │");
-        System.out.println("└───────┘");
+        CardRenderer.display(this);
     }
 
     /**
@@ -139,7 +204,7 @@ public class Card implements Cloneable, Serializable {
      * @return Result will be true if the card is an Ace.
      */
     public boolean isAce() {
-        return RANK.equals("Ace");
+        return CODE % RANK_COUNT == 0;
     }
 
     /**
@@ -154,12 +219,39 @@ public class Card implements Cloneable, Serializable {
     }
 
     /**
-     * This method clones a card object using the copy constructor.
+     * Cards are equal when they have the same rank and suit.
+     * 
+     * @param other the object being compared to.
+     * @return true if other is a card with the same code.
+     */
+    @Override
+    public boolean equals(Object other) {
+        return other instanceof Card && ((Card) other).CODE == CODE;
+    }
+
+    @Override
+    public int hashCode() {
+        return CODE;
+    }
+
+    /**
+     * Cards are immutable, so cloning returns the shared card with the same
+     * rank and suit instead of creating a new object.
      * 
-     * @return Card object that is a deep copy of the cloned card.
+     * @return the shared Card object equal to this card.
      */
     @Override
     public Card clone() {
-        return new Card(this);
+        return CARDS[CODE];
+    }
+
+    /**
+     * Replaces deserialized cards with the shared instance. The code is
+     * rebuilt from the rank and suit so that older saved cards still load.
+     * 
+     * @return the shared Card object with the same rank and suit.
+     */
+    private Object readResolve() {
+        return valueOf(RANK, SUIT);
     }
 }
@@ -0,0 +1,114 @@
+import java.util.List;
+
+/**
+ * The card renderer draws cards as boxes for the terminal. The rows of every
+ * card's box are built once, when the class is loaded, and a group of cards
+ * is laid out side by side in one buffer that is printed with a single
+ * write, instead of printing each row of each card separately. Groups wider
+ * than the terminal are wrapped onto further lines of cards.
+ *
+ * @author gunnarvonbergen
+ *
+ */
+public class CardRenderer {
+
+    /**
+     * The number of terminal lines a card takes up.
+     */
+    public static final int ROWS = 7;
+
+    /**
+     * The most cards drawn next to each other, which fits in 80 columns.
+     */
+    public static final int CARDS_PER_LINE = 8;
+
+    // The width of a card's box in characters.
+    private static final int WIDTH = 9;
+
+    private static final String[] SUIT_SYMBOLS = { "♥", "♦", "♠", "♣" };
+
+    // Each card's rows, indexed by code and then row.
+    private static final String[][] GLYPHS = new String[Card.DECK_SIZE][];
+
+    // Each card's whole box, ready to print on its own.
+    private static final String[] BOXES = new String[Card.DECK_SIZE];
+
+    static {
+        for (int code = 0; code < Card.DECK_SIZE; code++) {
+            String rank = Card.valueOf(code).convertCardValue();
+            String suit = SUIT_SYMBOLS[code / Card.RANK_COUNT];
+            GLYPHS[code] = new String[] { "┌───────┐", "│ " + rank + "     │",
+                    "│       │", "│   " + suit + "   │", "│       │",
+                    "│     " + rank + " │", "└───────┘" };
+            BOXES[code] = String.join("\n", GLYPHS[code]) + "\n";
+        }
+    }
+
+    private CardRenderer() {
+    }
+
+    /**
+     * Returns one row of a card's box.
+     *
+     * @param card the card being drawn.
+     * @param row  the row, from 0 at the top to ROWS - 1.
+     * @return the row's characters, without a line break.
+     */
+    public static String row(Card card, int row) {
+        return GLYPHS[card.getCode()][row];
+    }
+
+    /**
+     * Returns a card's whole box.
+     *
+     * @param card the card being drawn.
+     * @return the box's rows, each ending in a line break.
+     */
+    public static String render(Card card) {
+        return BOXES[card.getCode()];
+    }
+
+    /**
+     * Lays out cards side by side, wrapping after CARDS_PER_LINE cards.
+     *
+     * @param cards the cards being drawn, left to right.
+     * @return the rows of every card, each line ending in a line break.
+     */
+    public static String render(List<Card> cards) {
+        int lines = (cards.size() + CARDS_PER_LINE - 1) / CARDS_PER_LINE;
+        int perLine = Math.min(cards.size(), CARDS_PER_LINE);
+        StringBuilder out = new StringBuilder(lines * ROWS
+                * (perLine * (WIDTH + 1)));
+        for (int first = 0; first < cards.size(); first += CARDS_PER_LINE) {
+            int last = Math.min(first + CARDS_PER_LINE, cards.size());
+            for (int row = 0; row < ROWS; row++) {
+                for (int i = first; i < last; i++) {
+                    if (i > first) {
+                        out.append(' ');
+                    }
+                    out.append(GLYPHS[cards.get(i).getCode()][row]);
+                }
+                out.append('\n');
+            }
+        }
+        return out.toString();
+    }
+
+    /**
+     * Prints a card's box with a single write.
+     *
+     * @param card the card being shown.
+     */
+    public static void display(Card card) {
+        System.out.print(BOXES[card.getCode()]);
+    }
+
+    /**
+     * Prints cards side by side with a single write.
+     *
+     * @param cards the cards being shown, left to right.
+     */
+    public static void display(List<Card> cards) {
+        System.out.print(render(cards));
+    }
+}
@@ -0,0 +1,246 @@
+import java.util.concurrent.atomic.AtomicLongArray;
+
+/**
+ * A concurrent scoreboard keeps wins, losses and blackjacks that many threads
+ * can add to at once, such as the house's results across every table. The
+ * counts are striped over several cells, each on its own cache lines, and a
+ * thread adds to the cell picked by its id, moving on to the next cell if
+ * that one is busy, so threads rarely touch the same memory and no update is
+ * ever lost. Totals are the sums of the cells and are kept as longs.
+ *
+ * <p>
+ * Each cell holds all three counts and a sequence number, which is odd while
+ * an update is being written. Readers retry a cell whose sequence number was
+ * odd or changed while they read it, so a snapshot holds either all of an
+ * update or none of it: a win and its blackjack recorded together always
+ * appear together.
+ *
+ * @author gunnarvonbergen
+ *
+ */
+public class ConcurrentScoreboard implements Scoreboard {
+
+    /**
+     * The totals of a scoreboard, as added up by snapshot().
+     */
+    public static final class Snapshot {
+        private final long wins;
+
+        private final long losses;
+
+        private final long blackjacks;
+
+        private Snapshot(long wins, long losses, long blackjacks) {
+            this.wins = wins;
+            this.losses = losses;
+            this.blackjacks = blackjacks;
+        }
+
+        /**
+         * @return the total number of wins.
+         */
+        public long getWins() {
+            return wins;
+        }
+
+        /**
+         * @return the total number of losses.
+         */
+        public long getLosses() {
+            return losses;
+        }
+
+        /**
+         * @return the total number of blackjacks.
+         */
+        public long getBlackjacks() {
+            return blackjacks;
+        }
+
+        /**
+         * @return the total number of games, wins plus losses.
+         */
+        public long getGamesPlayed() {
+            return wins + losses;
+        }
+    }
+
+    // Each cell takes 16 longs, two cache lines, so that cells next to each
+    // other never share a line, even with adjacent line prefetching.
+    private static final int STRIDE = 16;
+
+    private static final int SEQUENCE = 0;
+
+    private static final int WINS = 1;
+
+    private static final int LOSSES = 2;
+
+    private static final int BLACKJACKS = 3;
+
+    // At least twice as many cells as processors, as a power of two, so a
+    // busy cell is rarely met.
+    private static final int CELLS = Integer.highestOneBit(
+            Math.max(1, Runtime.getRuntime().availableProcessors()) * 4 - 1);
+
+    private final String name;
+
+    private final AtomicLongArray cells = new AtomicLongArray(CELLS * STRIDE);
+
+    /**
+     * Creates an empty scoreboard.
+     *
+     * @param name the name shown with the scoreboard's stats.
+     */
+    public ConcurrentScoreboard(String name) {
+        this.name = name;
+    }
+
+    @Override
+    public String getName() {
+        return name;
+    }
+
+    @Override
+    public void addWin() {
+        record(1, 0, 0);
+    }
+
+    @Override
+    public void addLoss() {
+        record(0, 1, 0);
+    }
+
+    @Override
+    public void addBlackjack() {
+        record(0, 0, 1);
+    }
+
+    /**
+     * Adds a win and its blackjack as one update.
+     */
+    @Override
+    public void addBlackjackWin() {
+        record(1, 0, 1);
+    }
+
+    /**
+     * Adds any number of wins, losses and blackjacks, such as a whole batch
+     * of simulated hands. A snapshot sees all of them or none of them.
+     *
+     * @param wins       the number of wins to add.
+     * @param losses     the number of losses to add.
+     * @param blackjacks the number of blackjacks to add.
+     */
+    public void record(long wins, long losses, long blackjacks) {
+        int h = (int) Thread.currentThread().getId() * 0x9E3779B9;
+        int cell = (h ^ (h >>> 16)) & (CELLS - 1);
+        while (true) {
+            int base = cell * STRIDE;
+            long sequence = cells.get(base + SEQUENCE);
+            // An odd sequence number means another thread is writing.
+            if ((sequence & 1) == 0
+                    && cells.compareAndSet(base + SEQUENCE, sequence,
+                            sequence + 1)) {
+                add(base + WINS, wins);
+                add(base + LOSSES, losses);
+                add(base + BLACKJACKS, blackjacks);
+                cells.set(base + SEQUENCE, sequence + 2);
+                return;
+            }
+            cell = (cell + 1) & (CELLS - 1);
+        }
+    }
+
+    /**
+     * Adds to one count of a cell whose sequence number is held odd by this
+     * thread, so no other thread writes to it.
+     */
+    private void add(int index, long amount) {
+        if (amount != 0) {
+            cells.set(index, cells.get(index) + amount);
+        }
+    }
+
+    /**
+     * Adds up every cell, reading each one again if it changed while it was
+     * being read.
+     *
+     * @return the totals.
+     */
+    public Snapshot snapshot() {
+        long wins = 0;
+        long losses = 0;
+        long blackjacks = 0;
+        for (int base = 0; base < CELLS * STRIDE; base += STRIDE) {
+            while (true) {
+                long sequence = cells.get(base + SEQUENCE);
+                if ((sequence & 1) == 0) {
+                    long cellWins = cells.get(base + WINS);
+                    long cellLosses = cells.get(base + LOSSES);
+                    long cellBlackjacks = cells.get(base + BLACKJACKS);
+                    if (cells.get(base + SEQUENCE) == sequence) {
+                        wins += cellWins;
+                        losses += cellLosses;
+                        blackjacks += cellBlackjacks;
+                        break;
+                    }
+                }
+                Thread.onSpinWait();
+            }
+        }
+        return new Snapshot(wins, losses, blackjacks);
+    }
+
+    @Override
+    public int getWins() {
+        return saturate(snapshot().getWins());
+    }
+
+    @Override
+    public int getLosses() {
+        return saturate(snapshot().getLosses());
+    }
+
+    @Override
+    public int getBlackjacks() {
+        return saturate(snapshot().getBlackjacks());
+    }
+
+    @Override
+    public int getGamesPlayed() {
+        return saturate(snapshot().getGamesPlayed());
+    }
+
+    /**
+     * Displays the scoreboard's totals from a single snapshot.
+     */
+    @Override
+    public void displayStats() {
+        Snapshot totals = snapshot();
+        System.out.println("+------------------------------+");
+        System.out.format("| Stats for %-18s |\n", name);
+        System.out.println("+--------------+---------------+");
+        System.out.format("| %-13s %-14s |\n", "Wins:", totals.getWins());
+        System.out.format("| %-13s %-14s |\n", "Losses:", totals.getLosses());
+        System.out.format("| %-13s %-14s |\n", "Blackjacks:",
+                totals.getBlackjacks());
+        System.out.format("| %-13s %-14s |\n", "Games Played:",
+                totals.getGamesPlayed());
+        System.out.println("+------------------------------+");
+    }
+
+    /**
+     * Shared scoreboards are not ranked, so this does nothing.
+     */
+    @Override
+    public void setPlayerRank() {
+    }
+
+    /**
+     * Converts a total to an int for the Scoreboard getters, which cannot go
+     * past Integer.MAX_VALUE.
+     */
+    private static int saturate(long total) {
+        return (int) Math.min(total, Integer.MAX_VALUE);
+    }
+}
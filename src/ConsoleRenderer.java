@@ -0,0 +1,84 @@
+/**
+ * The console renderer prints a hand at the terminal as it is played. It is
+ * the listener used by players and dealers that have not been given another
+ * one, and it keeps no state, so a single instance is shared by everyone.
+ *
+ * @author gunnarvonbergen
+ *
+ */
+public class ConsoleRenderer implements GameListener {
+
+    /**
+     * The listener used by players that have not been given another one.
+     */
+    public static final ConsoleRenderer INSTANCE = new ConsoleRenderer();
+
+    @Override
+    public void handStarted(Player player, Dealer dealer) {
+        System.out.println();
+    }
+
+    /**
+     * Shows each of the player's cards, with a gap after every card once the
+     * first two have been dealt. Only the dealer's face up card is shown,
+     * the rest are listed once the player stands.
+     */
+    @Override
+    public void cardDrawn(Player player, Card card) {
+        int cards = player.getHand().size();
+        if (player instanceof Dealer) {
+            if (cards == 1) {
+                System.out.println("Dealer drew a(n) " + card);
+                System.out.println();
+            }
+            return;
+        }
+        // The heading, the card and the gap are printed with one write.
+        String box = CardRenderer.render(card);
+        System.out.print(cards > 1 ? "Drew Card: \n" + box + "\n"
+                : "Drew Card: \n" + box);
+    }
+
+    @Override
+    public void playerStood(Player player, Dealer dealer) {
+        System.out.println(); // Creates a gap in console for readability.
+        for (int i = 1; i < dealer.getHand().size(); i++) {
+            System.out.println("The dealer drew a(n) "
+                    + dealer.getHand().get(i).toString());
+        }
+    }
+
+    @Override
+    public void dealerBlackjack(Dealer dealer) {
+        System.out.println("Dealer got a blackjack! Dealer wins!");
+    }
+
+    @Override
+    public void handEnded(Player player, Dealer dealer, Outcome outcome) {
+        switch (outcome) {
+        case PLAYER_BLACKJACK:
+            System.out.println("Blackjack! You Win!");
+            break;
+        case PLAYER_TWENTY_ONE:
+            System.out.println("21! You Win!");
+            break;
+        case PLAYER_BUST:
+            System.out.printf("Busted! Your hand value was %d. You Lose!\n",
+                    player.calculateHandValue());
+            break;
+        case PLAYER_HIGHER:
+            System.out.println("Your hand is higher value! You Win!");
+            break;
+        case DEALER_HIGHER:
+            System.out.printf("The dealer's hand total of %d is higher "
+                    + "value! Dealer Wins!\n", dealer.calculateHandValue());
+            break;
+        case DEALER_BUST:
+            System.out.println("Dealer busted! You Win!");
+            break;
+        default:
+            System.out.println("Tie! It's a push!");
+            break;
+        }
+    }
+}
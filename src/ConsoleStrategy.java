@@ -0,0 +1,53 @@
+import java.util.Scanner;
+
+/**
+ * The console strategy asks the person at the terminal whether to hit or
+ * stand. A single scanner is shared for every decision instead of creating a
+ * new one each time, and FrontEnd reads from the same scanner so that no input
+ * is lost in another scanner's buffer.
+ * 
+ * @author gunnarvonbergen
+ *
+ */
+public class ConsoleStrategy implements Strategy {
+
+    /**
+     * The strategy used by players that have not been given another one.
+     */
+    public static final ConsoleStrategy INSTANCE = new ConsoleStrategy();
+
+    private static final Scanner HIT_IN = new Scanner(System.in);
+
+    /**
+     * Returns the scanner shared by everything reading from the console.
+     * 
+     * @return the shared scanner over System.in.
+     */
+    public static Scanner getInput() {
+        return HIT_IN;
+    }
+
+    /**
+     * Prompts the user to hit or stand and returns a boolean value
+     * representing their choice.
+     * 
+     * @param player       the player being prompted.
+     * @param dealerUpCard the dealer's up card (already shown to the user).
+     * @return true if the user entered "H", false if they entered "S".
+     */
+    @Override
+    public boolean decideToHit(Player player, Card dealerUpCard) {
+        player.printHandQuery();
+        while (true) {
+            String userInput = HIT_IN.next();
+            if (userInput.equalsIgnoreCase("S")) {
+                return false;
+            } else if (userInput.equalsIgnoreCase("H")) {
+                return true;
+            } else {
+                System.out.println(
+                        "Enter a valid choice \"H\" to hit or \"S\" to stand.");
+            }
+        }
+    }
+}
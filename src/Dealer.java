@@ -17,6 +17,10 @@ public class Dealer extends Player implements Cloneable, Serializable {
     // Used in the player class
     private boolean firstCardDealt = false;
 
+    // Decides when the dealer stops drawing. Null for dealers saved before
+    // rules existed, which play by the default rules.
+    private TableRules rules;
+
     /**
      * 
      * Creates a new Dealer object with the given name, wins, losses, and
@@ -29,8 +33,23 @@ public class Dealer extends Player implements Cloneable, Serializable {
      * @param blackjacks the number of blackjacks the dealer has
      */
     public Dealer(final String NAME, int wins, int losses, int blackjacks) {
+        this(NAME, wins, losses, blackjacks, TableRules.DEFAULT);
+    }
+
+    /**
+     * Creates a new Dealer object that plays by the given table rules.
+     * 
+     * @param NAME       the name of the dealer
+     * @param wins       the number of wins the dealer has
+     * @param losses     the number of losses the dealer has
+     * @param blackjacks the number of blackjacks the dealer has
+     * @param rules      the rules deciding when the dealer stops drawing
+     */
+    public Dealer(final String NAME, int wins, int losses, int blackjacks,
+            TableRules rules) {
         // Calls on player constructor to initialize instance variables.
         super(NAME, wins, losses, blackjacks);
+        this.rules = rules;
     }
 
     /**
@@ -39,16 +58,16 @@ public class Dealer extends Player implements Cloneable, Serializable {
      * @param other the dealer object to copy from.
      */
     public Dealer(Dealer other) {
-        super(other.getName(), other.getWins(), other.getLosses(),
-                other.getBlackjacks());
-        for (Card card : other.getHand()) {
-            this.getHand().add(card.clone());
-        }
+        this(other.getName(), other.getWins(), other.getLosses(),
+                other.getBlackjacks(), other.getRules());
+        this.getHand().addAll(other.getHand());
 
     }
 
     /**
-     * Plays a dealers hand against a player.
+     * Plays a dealers hand against a player. The dealer hits on 16 or lower,
+     * and also hits a soft 17 (an ace counted as 11 plus six) if the table's
+     * rules say so.
      * 
      * @param deck   the deck being used to hold the current cards.
      * @param player the player being played against.
@@ -61,19 +80,18 @@ public class Dealer extends Player implements Cloneable, Serializable {
                 addLoss();
                 setBusted(true);
                 break;
-            } else if (calculateHandValue() >= 17) {
+            } else if (!getRules().dealerHits(calculateHandValue(),
+                    isSoft())) {
                 if (calculateHandValue() == 21) {
                     if (getHand().size() == 2) {
-                        System.out.println(
-                                "Dealer got a blackjack! Dealer wins!");
+                        getGameListener().dealerBlackjack(this);
                     }
                     /*
                      * else { System.out.println("Dealer got 21! Dealer wins!");
                      * 
                      * Temporarily removing, seems redundant }
                      */
-                    addWin();
-                    addBlackjack();
+                    addBlackjackWin();
                 }
                 break;
             }
@@ -89,24 +107,16 @@ public class Dealer extends Player implements Cloneable, Serializable {
      */
     @Override
     public void drawCard(Deck deck) {
-        this.getHand().add(deck.draw());
-        if (getHand().size() == 1) {
-            System.out.println("Dealer drew a(n) "
-                    + getHand().get(getHand().size() - 1).toString());
-            System.out.println();
-
-        }
-
+        Card card = deck.draw();
+        this.getHand().add(card);
+        getGameListener().cardDrawn(this, card);
     }
 
     /**
-     * Loops through all cards a dealer has in their hand and displays each
-     * card.
+     * Displays every card in the dealer's hand side by side.
      */
     public void displayHand() {
-        for (Card c : this.getHand()) {
-            c.displayCard();
-        }
+        CardRenderer.display(getHand());
     }
 
     /**
@@ -119,6 +129,18 @@ public class Dealer extends Player implements Cloneable, Serializable {
         firstCardDealt = value;
     }
 
+    /**
+     * Returns the rules the dealer plays by.
+     * 
+     * @return the dealer's table rules.
+     */
+    public TableRules getRules() {
+        if (rules == null) {
+            return TableRules.DEFAULT;
+        }
+        return rules;
+    }
+
     /**
      * The number of games the dealer has dealt.
      * 
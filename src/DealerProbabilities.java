@@ -0,0 +1,282 @@
+import java.util.Arrays;
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+/**
+ * Dealer probabilities are the exact chances of each final total the dealer
+ * can finish on, found by following every card the dealer could draw from
+ * the cards left in the shoe instead of simulating hands. The dealer plays
+ * by the same rules as Dealer.playHand(): they hit on 16 or lower, and on a
+ * soft 17 if the table's rules say so.
+ *
+ * <p>
+ * Results are remembered for each combination of remaining cards and dealer
+ * hand, so the many paths that reach the same cards (an ace then a six, or a
+ * six then an ace) are only worked out once, and asking again is a lookup.
+ * The remembered results are kept in a least recently used cache with a
+ * fixed number of entries. A composition is packed into a single long to key
+ * the cache: six bits for each of the counts of aces to nines and eight bits
+ * for the tens, which covers a full eight deck shoe.
+ *
+ * @author gunnarvonbergen
+ *
+ */
+public class DealerProbabilities {
+
+    /**
+     * The number of final outcomes: totals of 17 to 21, then a bust.
+     */
+    public static final int OUTCOMES = 6;
+
+    /**
+     * The index of busting in a table of outcomes. Index i below this is a
+     * final total of 17 + i.
+     */
+    public static final int BUST = 5;
+
+    /**
+     * The number of compositions remembered by default.
+     */
+    public static final int DEFAULT_CACHE_SIZE = 1 << 16;
+
+    // Dealer hands that are still drawing have a hard total (aces as one) of
+    // at most 21.
+    private static final int HARD_TOTALS = 22;
+
+    // A hard total and whether there is an ace, for each number of cards the
+    // dealer must still draw.
+    private static final int STATES = HARD_TOTALS * 2;
+
+    private static final int COUNT_BITS = 6;
+
+    private static final int TEN_BITS = 8;
+
+    // Shared tables for hands that are already finished.
+    private static final double[][] TERMINAL = new double[OUTCOMES][];
+
+    static {
+        for (int i = 0; i < OUTCOMES; i++) {
+            TERMINAL[i] = new double[OUTCOMES];
+            TERMINAL[i][i] = 1;
+        }
+    }
+
+    private final TableRules rules;
+
+    private final Map<Long, double[][]> cache;
+
+    private long lookups;
+
+    private long misses;
+
+    /**
+     * Creates a calculator for the default rules that remembers up to
+     * DEFAULT_CACHE_SIZE compositions.
+     */
+    public DealerProbabilities() {
+        this(TableRules.DEFAULT, DEFAULT_CACHE_SIZE);
+    }
+
+    /**
+     * Creates a calculator for the default rules that remembers up to the
+     * given number of compositions, forgetting the least recently used
+     * first.
+     *
+     * @param cacheSize the most compositions remembered, at least 1.
+     */
+    public DealerProbabilities(int cacheSize) {
+        this(TableRules.DEFAULT, cacheSize);
+    }
+
+    /**
+     * Creates a calculator for a table's rules that remembers up to the
+     * given number of compositions, forgetting the least recently used
+     * first.
+     *
+     * @param rules     the rules deciding when the dealer stops drawing.
+     * @param cacheSize the most compositions remembered, at least 1.
+     */
+    public DealerProbabilities(TableRules rules, int cacheSize) {
+        this.rules = rules;
+        if (cacheSize < 1) {
+            throw new IllegalArgumentException(
+                    "The cache must hold at least one entry: " + cacheSize);
+        }
+        cache = new LinkedHashMap<Long, double[][]>(16, 0.75f, true) {
+            private static final long serialVersionUID = 1L;
+
+            @Override
+            protected boolean removeEldestEntry(
+                    Map.Entry<Long, double[][]> eldest) {
+                return size() > cacheSize;
+            }
+        };
+    }
+
+    /**
+     * Returns the chances of each final total for a dealer showing the given
+     * up card, who draws the rest of their hand from a deck.
+     *
+     * @param upCard the dealer's up card, already drawn from the deck.
+     * @param deck   the deck the dealer draws from.
+     * @return a new array of OUTCOMES chances that add up to 1.
+     */
+    public double[] finalTotals(Card upCard, Deck deck) {
+        return finalTotals(upCard.getValue(), upCard.isAce(), 0,
+                deck.getComposition());
+    }
+
+    /**
+     * Returns the chances of each final total for a dealer whose hand so far
+     * has the given hard total, counting every ace as 1.
+     *
+     * @param hardTotal   the dealer's total with aces counted as 1.
+     * @param hasAce      true if the dealer holds an ace.
+     * @param composition the number of undealt cards of each point value, as
+     *                    returned by Deck.getComposition().
+     * @return a new array of OUTCOMES chances that add up to 1.
+     * @throws IllegalArgumentException if a count does not fit in the cache
+     *                                  key, or no cards are left.
+     */
+    public double[] finalTotals(int hardTotal, boolean hasAce,
+            int[] composition) {
+        return finalTotals(hardTotal, hasAce, 0, composition);
+    }
+
+    /**
+     * Returns the chances of each final total for a dealer who must first
+     * draw some cards whatever their total, as the dealer does once for each
+     * card the player hits, and then plays out their hand.
+     *
+     * @param hardTotal   the dealer's total with aces counted as 1.
+     * @param hasAce      true if the dealer holds an ace.
+     * @param forcedDraws the number of cards drawn before the dealer plays.
+     * @param composition the number of undealt cards of each point value, as
+     *                    returned by Deck.getComposition().
+     * @return a new array of OUTCOMES chances that add up to 1.
+     * @throws IllegalArgumentException if a count does not fit in the cache
+     *                                  key, or no cards are left.
+     */
+    public synchronized double[] finalTotals(int hardTotal, boolean hasAce,
+            int forcedDraws, int[] composition) {
+        int[] counts = composition.clone();
+        long key = pack(counts);
+        int remaining = 0;
+        for (int count : counts) {
+            remaining += count;
+        }
+        if (remaining == 0) {
+            throw new IllegalArgumentException("No cards are left to draw");
+        }
+        return play(hardTotal, hasAce, forcedDraws, counts, remaining, key)
+                .clone();
+    }
+
+    /**
+     * Returns the number of compositions currently remembered.
+     *
+     * @return the cache's entry count.
+     */
+    public synchronized int getCacheSize() {
+        return cache.size();
+    }
+
+    /**
+     * Returns the fraction of dealer hands that were found in the cache, out
+     * of every hand looked up, including those inside a calculation.
+     *
+     * @return the hit rate from 0 to 1, or 0 before the first lookup.
+     */
+    public synchronized double getHitRate() {
+        return lookups == 0 ? 0 : 1 - (double) misses / lookups;
+    }
+
+    /**
+     * Works out the outcomes of a dealer hand, drawing from counts. The
+     * counts are changed while drawing and restored before returning.
+     */
+    private double[] play(int hard, boolean ace, int forced, int[] counts,
+            int remaining, long key) {
+        int total = ace && hard <= 11 ? hard + 10 : hard;
+        boolean soft = total != hard;
+        if (total > 21) {
+            return terminal(BUST);
+        } else if (forced == 0 && !rules.dealerHits(total, soft)) {
+            return terminal(total - 17);
+        } else if (remaining == 0) {
+            // The shoe would be reshuffled mid hand, which only happens
+            // with a handful of cards left. The dealer is counted as
+            // finishing on the lowest standing total.
+            return terminal(total >= 17 ? total - 17 : 0);
+        }
+
+        lookups++;
+        double[][] states = cache.get(key);
+        int state = (forced * HARD_TOTALS + hard) * 2 + (ace ? 1 : 0);
+        if (states == null) {
+            states = new double[STATES * (forced + 1)][];
+            cache.put(key, states);
+        } else if (states.length <= state) {
+            states = Arrays.copyOf(states, STATES * (forced + 1));
+            cache.put(key, states);
+        }
+        if (states[state] != null) {
+            return states[state];
+        }
+        misses++;
+
+        double[] outcomes = new double[OUTCOMES];
+        for (int value = 1; value <= Card.VALUE_COUNT; value++) {
+            int count = counts[value - 1];
+            if (count == 0) {
+                continue;
+            }
+            double chance = (double) count / remaining;
+            counts[value - 1]--;
+            double[] next = play(hard + value, ace || value == 1,
+                    Math.max(forced - 1, 0), counts, remaining - 1,
+                    key - (1L << shift(value)));
+            counts[value - 1]++;
+            for (int i = 0; i < OUTCOMES; i++) {
+                outcomes[i] += chance * next[i];
+            }
+        }
+        states[state] = outcomes;
+        return outcomes;
+    }
+
+    private static double[] terminal(int outcome) {
+        return TERMINAL[outcome];
+    }
+
+    /**
+     * Returns where the count of a point value starts in a packed
+     * composition.
+     */
+    static int shift(int value) {
+        return (value - 1) * COUNT_BITS;
+    }
+
+    /**
+     * Packs a composition into a cache key.
+     *
+     * @throws IllegalArgumentException if a count does not fit.
+     */
+    static long pack(int[] counts) {
+        if (counts.length != Card.VALUE_COUNT) {
+            throw new IllegalArgumentException(
+                    "A composition has " + Card.VALUE_COUNT + " counts");
+        }
+        long key = 0;
+        for (int value = 1; value <= Card.VALUE_COUNT; value++) {
+            int bits = value == Card.VALUE_COUNT ? TEN_BITS : COUNT_BITS;
+            int count = counts[value - 1];
+            if (count < 0 || count >= 1 << bits) {
+                throw new IllegalArgumentException(
+                        "Too many cards of value " + value + ": " + count);
+            }
+            key += (long) count << shift(value);
+        }
+        return key;
+    }
+}
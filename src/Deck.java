@@ -1,11 +1,11 @@
 import java.io.Serializable;
 import java.util.ArrayList;
-import java.util.Collections;
 
 /**
  * Deck objects represent a deck of cards for a game of Blackjack. Each deck has
  * 52 standard playing cards, represented by card objects. The deck is able to
- * be shuffled and dealt.
+ * be shuffled and dealt. Every deck owns its own random number generator, so a
+ * deck created with a seed always deals the same cards.
  * 
  * @author gunnarvonbergen
  *
@@ -19,23 +19,51 @@ public class Deck implements Cloneable, Serializable {
 
     private ArrayList<Card> cards = new ArrayList<Card>();
 
-    private int remainingCards = 52;
+    private ShuffleRandom random;
 
     /**
      * No parameter constructor generates a new array list of cards that
-     * represents a full deck.
+     * represents a full deck. The shared card objects are used, so no new cards
+     * are created.
      */
     public Deck() {
-        String[] ranks = { "Ace", "2", "3", "4", "5", "6", "7", "8", "9", "10",
-                "Jack", "Queen", "King" };
-        String[] suits = { "Hearts", "Diamonds", "Spades", "Clubs" };
-        for (String suit : suits) {
-            for (String rank : ranks) {
-                cards.add(new Card(rank, suit));
-            }
+        this(new ShuffleRandom());
+    }
+
+    /**
+     * Creates a full deck whose shuffles are determined by the given seed.
+     * 
+     * @param seed the seed of the deck's random number generator.
+     */
+    public Deck(long seed) {
+        this(new ShuffleRandom(seed));
+    }
+
+    /**
+     * Creates a full deck that shuffles with the given random number
+     * generator.
+     * 
+     * @param random the generator used by shuffle().
+     */
+    public Deck(ShuffleRandom random) {
+        this.random = random;
+        for (int code = 0; code < Card.DECK_SIZE; code++) {
+            cards.add(Card.valueOf(code));
         }
     }
 
+    /**
+     * Constructor for subclasses that keep their cards somewhere other than
+     * the array list. The deck starts with no cards in its list.
+     * 
+     * @param capacity the initial capacity of the (unused) array list.
+     * @param random   the generator used by shuffle().
+     */
+    protected Deck(int capacity, ShuffleRandom random) {
+        this.cards = new ArrayList<Card>(capacity);
+        this.random = random;
+    }
+
     /**
      * Copy constructor that allows for creating deep copies through the clone()
      * method.
@@ -45,11 +73,10 @@ public class Deck implements Cloneable, Serializable {
     public Deck(Deck other) { // Copy constructor
         // Allows for copying of already dealt decks. Might not be useful now,
         // but potentially in the future.
-        this.remainingCards = other.remainingCards;
-        this.cards = new ArrayList<Card>(other.cards.size());
-        for (Card card : other.cards) {
-            this.cards.add(card.clone());
-        }
+        // Cards are immutable, so the copy can share the same card objects.
+        // The generator is copied too, so later shuffles also match.
+        this.cards = new ArrayList<Card>(other.cards);
+        this.random = other.getRandom().clone();
     }
 
     /**
@@ -66,28 +93,48 @@ public class Deck implements Cloneable, Serializable {
     }
 
     /**
-     * The shuffle method will loop through an array list of cards, generate a
-     * random number between 0 and 51, swapping the current card with the card
-     * at the randomly generated index.
-     * 
-     * Currently, I am using the Collections.shuffle() method instead.
+     * The shuffle method loops backwards through the array list of cards,
+     * swapping each card with a card at a random index at or before it (a
+     * Fisher-Yates shuffle). The deck's own generator is used, so seeded decks
+     * shuffle the same way every time.
      */
     public void shuffle() {
-        /*
-         * for (int i = 0; i < 52; i++) { int randomIndex = (int) (Math.random()
-         * * 51); Card temp = cards.get(randomIndex); cards.set(i,
-         * cards.get(randomIndex)); cards.set(randomIndex, temp); }
-         */
-        Collections.shuffle(this.cards);
+        for (int i = cards.size() - 1; i > 0; i--) {
+            int randomIndex = getRandom().nextInt(i + 1);
+            Card temp = cards.get(i);
+            cards.set(i, cards.get(randomIndex));
+            cards.set(randomIndex, temp);
+        }
     }
 
     /**
-     * Displays all cards in the deck object's array list of cards.
+     * Returns the random number generator used for shuffling.
+     * 
+     * @return the deck's generator.
      */
-    public void displayDeck() {
-        for (Card c : cards) {
-            c.displayCard();
+    public ShuffleRandom getRandom() {
+        if (random == null) {
+            random = new ShuffleRandom(); // Decks saved before seeding existed.
         }
+        return random;
+    }
+
+    /**
+     * Replaces the random number generator used for shuffling, for example to
+     * reseed a deck before replaying a hand.
+     * 
+     * @param random the generator to shuffle with.
+     */
+    public void setRandom(ShuffleRandom random) {
+        this.random = random;
+    }
+
+    /**
+     * Displays all cards in the deck object's array list of cards, side by
+     * side.
+     */
+    public void displayDeck() {
+        CardRenderer.display(cards);
     }
 
     /**
@@ -100,6 +147,29 @@ public class Deck implements Cloneable, Serializable {
         return cards;
     }
 
+    /**
+     * Returns the number of cards that have not been drawn yet.
+     * 
+     * @return the number of cards left in the deck.
+     */
+    public int getRemainingCards() {
+        return cards.size();
+    }
+
+    /**
+     * Counts the cards that have not been drawn by point value.
+     * 
+     * @return a new array of Card.VALUE_COUNT counts, where index 0 counts the
+     *         aces and index 9 counts the tens and face cards.
+     */
+    public int[] getComposition() {
+        int[] composition = new int[Card.VALUE_COUNT];
+        for (Card card : cards) {
+            composition[card.getValue() - 1]++;
+        }
+        return composition;
+    }
+
     /**
      * Clone method can be used to create a copy of a deck. Potential uses
      * include the ability of making two players play the same hand or a replay
@@ -116,6 +186,7 @@ public class Deck implements Cloneable, Serializable {
      */
     @Override
     public String toString() {
+        int remainingCards = getRemainingCards();
         if (remainingCards == 1) {
             return String.format("This deck has %s card left.", remainingCards);
         }
@@ -11,32 +11,75 @@
  */
 import java.util.ArrayList;
 import java.util.Scanner;
-import java.io.FileInputStream;
-import java.io.FileOutputStream;
+import java.util.concurrent.CompletableFuture;
+import java.util.function.Consumer;
+import java.io.File;
 import java.io.IOException;
 import java.io.ObjectInputStream;
-import java.io.ObjectOutputStream;
+import java.nio.channels.Channels;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Paths;
+import java.nio.file.StandardOpenOption;
 
 public class FrontEnd {
 
+    // The rules the shoe is dealt and the dealer plays by.
+    private static final TableRules RULES = TableRules.DEFAULT;
+
+    // Player profiles are saved in profiles.dat and profiles.idx.
+    private static final String PROFILE_STORE = "profiles";
+
+    // Profiles were saved here, all at once, before the profile store existed.
+    private static final String LEGACY_DATA_FILE = "dataFile.txt";
+
+    // How many players are shown on the leaderboard at the end of a session.
+    private static final int LEADERBOARD_SIZE = 5;
+
+    // Profiles that have been loaded or saved in this process. The profile
+    // store is always asked first, since other sessions may have changed a
+    // profile since; this only answers when there is no store.
+    private static final PlayerRegistry PROFILES = new PlayerRegistry();
+
     public static void main(String[] args) {
         playGame();
     }
 
     /**
-     * Starts the general play game loop. Creates an array list of players that
-     * will be used to store the data read from the file.
+     * Starts the general play game loop. Opens the profile store that the
+     * player is loaded from, and a profile writer that logs the results of
+     * each hand in the background. Only the player's own profile is loaded
+     * before the first hand, while the leaderboard is built from the other
+     * profiles in the background; profiles left in the old data file are
+     * imported once the session is over. Everything is written to disk before
+     * the game ends.
      */
     public static void playGame() {
-        ArrayList<Player> playerList = new ArrayList<>();
-        // Import players
-        Player player = gameSetup(playerList);
+        ProfileStorage store = openProfileStore(PROFILE_STORE);
+        ProfileLog log = openProfileLog(store, PROFILE_STORE);
+        ProfileWriter writer = null;
+        if (store != null) {
+            writer = new ProfileWriter(store, log);
+        }
+        Player player = gameSetup(store);
+        CompletableFuture<Leaderboard> leaderboard = buildLeaderboard(store);
+        Table table = new Table(RULES);
+        table.seat(player);
+        joinLeaderboard(player, leaderboard, false);
         player.setPlayerRank();
         player.displayStats();
-        while (innerGameLoop(player, playerList)) {
+        while (innerGameLoop(table, writer)) {
+            joinLeaderboard(player, leaderboard, false);
             player.setPlayerRank();
             player.displayStats();
         }
+        if (writer != null) {
+            writer.close(); // Writes any results that are still queued.
+        }
+        importLegacyProfiles(store);
+        closeProfileLog(log);
+        joinLeaderboard(player, leaderboard, true);
+        closeProfileStore(store);
         gameConclusion(player);
     }
 
@@ -49,60 +92,258 @@ public class FrontEnd {
         System.out.println();
         System.out.println("Here are your stats at the end of this session:");
         player.displayStats();
+        if (player.getLeaderboard() != null) {
+            player.getLeaderboard().displayTop(LEADERBOARD_SIZE);
+        }
         System.out.println("Thanks for playing!");
     }
 
     /**
-     * Returns the specified player object from the array list based on matching
-     * the desired name. If there is no match, a new player object is created.
+     * Returns the specified player object from the profile store based on
+     * matching the desired name. If there is no match, a new player object is
+     * created.
      * 
-     * @param playerList an array list of player objects that represent the
-     *                   total data set.
+     * @param store the profile store, or null if profiles are not available.
      * @return a player object that was either retrieved or generated.
      */
-    private static Player gameSetup(ArrayList<Player> playerList) {
+    private static Player gameSetup(ProfileStorage store) {
         String name = requestPlayerName();
-        Player player = new Player(name, 0, 0, 0);
-        // Import players
-        ArrayList<Player> importedPlayers = readPlayers("dataFile.txt");
-        for (Player importedPlayer : importedPlayers) {
-            if (importedPlayer.getName().equals(name)) {
-                player = importedPlayer;
-                player.setValues();
-            } else {
-                playerList.add(importedPlayer);
+        Player player = findProfile(store, name);
+        if (player == null) {
+            System.out.println(
+                    "No existing player found, generating new data...");
+            player = new Player(name, 0, 0, 0);
+        }
+        player.setValues();
+        return player;
+    }
+
+    /**
+     * Starts building the leaderboard from every saved profile on another
+     * thread, so the first hand does not wait for it. The leaderboard only
+     * belongs to this session, so its percentiles are approximate while
+     * other sessions are saving games.
+     * 
+     * @param store the profile store, or null if profiles are not available.
+     * @return the leaderboard being built, which is null if there are no
+     *         profiles.
+     */
+    public static CompletableFuture<Leaderboard> buildLeaderboard(
+            ProfileStorage store) {
+        if (store == null) {
+            return CompletableFuture.completedFuture(null);
+        }
+        return CompletableFuture.supplyAsync(() -> Leaderboard.build(store));
+    }
+
+    /**
+     * Puts the player on the leaderboard once it has been built. Until then,
+     * the player's stats are shown without a percentile.
+     * 
+     * @param player      the player of this session.
+     * @param leaderboard the leaderboard being built.
+     * @param wait        whether to wait for the leaderboard to be built.
+     */
+    private static void joinLeaderboard(Player player,
+            CompletableFuture<Leaderboard> leaderboard, boolean wait) {
+        if (player.getLeaderboard() != null
+                || !(wait || leaderboard.isDone())) {
+            return;
+        }
+        try {
+            player.setLeaderboard(leaderboard.join());
+        } catch (RuntimeException re) {
+            System.out.println("The leaderboard is unavailable: "
+                    + re.getMessage());
+        }
+    }
+
+    /**
+     * Opens the profile store, which is sharded if it has been resharded with
+     * ShardedProfileStore. No profiles are read until one is asked for.
+     * 
+     * @param baseName the name of the store's files without extensions.
+     * @return the opened store, or null if it could not be opened.
+     */
+    public static ProfileStorage openProfileStore(String baseName) {
+        try {
+            return ProfileStorage.open(baseName);
+        } catch (IOException ioe) {
+            ioe.printStackTrace();
+            System.out.println(
+                    "Profiles are unavailable, stats will not be saved.");
+            return null;
+        }
+    }
+
+    /**
+     * Opens the log that the results of each hand are written to. Results
+     * left in the log by a session that did not finish are added to the store
+     * first.
+     * 
+     * @param store    the profile store, or null if profiles are not
+     *                 available.
+     * @param baseName the name of the log's file without its extension.
+     * @return the opened log, or null if it could not be opened and results
+     *         should be written straight to the store.
+     */
+    public static ProfileLog openProfileLog(ProfileStorage store,
+            String baseName) {
+        if (store == null) {
+            return null;
+        }
+        try {
+            ProfileLog log = new ProfileLog(baseName);
+            int recovered = log.compact(store);
+            if (recovered > 0) {
+                System.out.printf("Recovered stats for %d players.\n",
+                        recovered);
+            }
+            return log;
+        } catch (IOException ioe) {
+            ioe.printStackTrace();
+            return null;
+        }
+    }
+
+    /**
+     * Finds a player's profile, first in the profile store, or in the
+     * in-memory registry if there is no store, and finally in the old data
+     * file. A profile found in the old data file is copied into the store
+     * straight away, so that the results of the session are added to it.
+     * 
+     * @param store the profile store, or null if profiles are not available.
+     * @param name  the name of the player.
+     * @return the player, or null if they do not have a profile.
+     */
+    public static Player findProfile(ProfileStorage store, String name) {
+        Player player = store != null ? store.load(name) : PROFILES.get(name);
+        if (player == null) {
+            player = findPlayer(LEGACY_DATA_FILE, name);
+            if (player != null) {
+                saveProfile(store, player);
             }
         }
+        if (player != null) {
+            PROFILES.put(player);
+        }
         return player;
     }
 
     /**
-     * Functions as the looping part of running a blackjack game. Each loop, a
-     * new dealer and deck are created and shuffled. In addition, the player is
-     * saved and reloaded to ensure up to date data saving.
+     * Copies the profiles in the old data file into the profile store and
+     * renames the file so that it is only imported once. Profiles that are
+     * already in the store are newer and are kept.
      * 
-     * @param player     The player playing the blackjack game.
-     * @param playerList The array list that functions as data storage for all
-     *                   players and is written to.
-     * @return true if the player would like to loop.
+     * @param store the profile store, or null if profiles are not available.
      */
-    private static boolean innerGameLoop(Player player,
-            ArrayList<Player> playerList) {
-        Dealer bjDealer = new Dealer("Dealer", 0, 0, 0);
-        Deck bjDeck = new Deck();
-        bjDeck.shuffle();
-        player.playHand(bjDeck, bjDealer);
-        if (!getYNConfirm("Would you like to play again? (Y/N): ")) {
-            if (!isInList(player, playerList)) {
-                playerList.add(player);
+    public static void importLegacyProfiles(ProfileStorage store) {
+        File legacy = new File(LEGACY_DATA_FILE);
+        if (store == null || legacy.length() == 0) {
+            return;
+        }
+        // The old save path could store one name more than once, the last
+        // copy of each is kept.
+        PlayerRegistry imported = new PlayerRegistry();
+        forEachPlayer(LEGACY_DATA_FILE, player -> {
+            String name = player.getName();
+            if (imported.contains(name) || !store.contains(name)) {
+                try {
+                    store.save(player);
+                    imported.put(player);
+                } catch (RuntimeException re) {
+                    System.out.println("Could not import " + name + ": "
+                            + re.getMessage());
+                }
             }
-            player.getHand().clear(); // Empty hand before writing data.
-            writePlayers("dataFile.txt", playerList);
-            return false;
+        });
+        System.out.printf("Imported %d profiles from %s.\n", imported.size(),
+                LEGACY_DATA_FILE);
+        if (!legacy.renameTo(new File(LEGACY_DATA_FILE + ".imported"))) {
+            System.out.println("Could not rename " + LEGACY_DATA_FILE + ".");
         }
-        player.getHand().clear();
-        writePlayers("dataFile.txt", playerList);
-        return true;
+    }
+
+    /**
+     * Saves a single player's stats to the registry and the profile store.
+     * 
+     * @param store  the profile store, or null if profiles are not available.
+     * @param player the player being saved.
+     */
+    public static void saveProfile(ProfileStorage store, Player player) {
+        PROFILES.put(player);
+        if (store == null) {
+            return;
+        }
+        try {
+            store.save(player);
+        } catch (RuntimeException re) {
+            // Unsavable names or a full disk should not end the game.
+            System.out.println("Could not save " + player.getName() + ": "
+                    + re.getMessage());
+        }
+    }
+
+    /**
+     * Writes the profile store to disk and closes it.
+     * 
+     * @param store the profile store, or null if profiles are not available.
+     */
+    public static void closeProfileStore(ProfileStorage store) {
+        if (store == null) {
+            return;
+        }
+        try {
+            store.close();
+        } catch (IOException ioe) {
+            ioe.printStackTrace();
+        }
+    }
+
+    /**
+     * Closes the results log. Its results have already been compacted into
+     * the store by the profile writer.
+     * 
+     * @param log the results log, or null if there is none.
+     */
+    public static void closeProfileLog(ProfileLog log) {
+        if (log == null) {
+            return;
+        }
+        try {
+            log.close();
+        } catch (IOException ioe) {
+            ioe.printStackTrace();
+        }
+    }
+
+    /**
+     * Functions as the looping part of running a blackjack game. Each loop,
+     * the table is reset for the next hand, which reshuffles the shoe if the
+     * cut card has been reached. In addition, the result of every hand is
+     * queued to be saved, without waiting for the disk.
+     * 
+     * @param table  The table the player is seated at for the whole session.
+     * @param writer The writer the results are queued to, or null if profiles
+     *               are not available.
+     * @return true if the player would like to loop.
+     */
+    private static boolean innerGameLoop(Table table, ProfileWriter writer) {
+        Player player = table.getPlayer();
+        if (table.resetForNextHand()) {
+            System.out.println("The cut card was reached, shuffling the shoe.");
+        }
+        int wins = player.getWins();
+        int losses = player.getLosses();
+        int blackjacks = player.getBlackjacks();
+        table.playHand();
+        PROFILES.put(player);
+        if (writer != null) {
+            writer.record(player.getName(), player.getWins() - wins,
+                    player.getLosses() - losses,
+                    player.getBlackjacks() - blackjacks);
+        }
+        return getYNConfirm("Would you like to play again? (Y/N): ");
     }
 
     /**
@@ -117,7 +358,7 @@ public class FrontEnd {
     public static boolean isInList(Player player,
             ArrayList<Player> playerList) {
         for (int i = 0; i < playerList.size(); i++) {
-            if (playerList.get(i).getName() == player.getName()) {
+            if (playerList.get(i).getName().equals(player.getName())) {
                 return true;
             }
         }
@@ -130,10 +371,16 @@ public class FrontEnd {
      * @return a String representing the player's name.
      */
     public static String requestPlayerName() {
-        Scanner nameInput = new Scanner(System.in);
-        System.out.print("Enter your profile/player name: ");
-        String name = nameInput.next();
-        return name;
+        Scanner nameInput = ConsoleStrategy.getInput();
+        while (true) {
+            System.out.print("Enter your profile/player name: ");
+            String name = nameInput.next();
+            int length = name.getBytes(StandardCharsets.UTF_8).length;
+            if (length <= ProfileStore.MAX_NAME_BYTES) {
+                return name;
+            }
+            System.out.println("That name is too long!");
+        }
     }
 
     /**
@@ -145,7 +392,7 @@ public class FrontEnd {
      */
     public static int indexOfPlayer(String name, ArrayList<Player> playerList) {
         for (int i = 0; i < playerList.size(); i++) {
-            if (playerList.get(i).getName() == name) {
+            if (playerList.get(i).getName().equals(name)) {
                 return i;
             }
         }
@@ -153,7 +400,8 @@ public class FrontEnd {
     }
 
     /**
-     * Saves the passed array list to the specified filename.
+     * Saves the passed array list to the specified filename, in the binary
+     * format defined by {@link ProfileCodec}.
      * 
      * @param filename   the location of the data file.
      * @param playerList the array list to be saved.
@@ -161,13 +409,10 @@ public class FrontEnd {
     public static void writePlayers(String filename,
             ArrayList<Player> playerList) {
 
-        try {
-            FileOutputStream fileOut = new FileOutputStream(filename);
-            ObjectOutputStream out = new ObjectOutputStream(fileOut);
-            out.writeObject(playerList);
-            out.flush();
-            out.close();
-            fileOut.close();
+        try (FileChannel out = FileChannel.open(Paths.get(filename),
+                StandardOpenOption.CREATE, StandardOpenOption.WRITE,
+                StandardOpenOption.TRUNCATE_EXISTING)) {
+            ProfileCodec.writeAll(out, playerList);
 
         } catch (IOException ioe) {
             ioe.printStackTrace();
@@ -175,7 +420,9 @@ public class FrontEnd {
     }
 
     /**
-     * Imports an array list of players from a specified data file.
+     * Imports an array list of players from a specified data file. Files
+     * saved with Java serialization, before the binary format was used, can
+     * still be read.
      * 
      * @param filename the name of the file to import from.
      * @return an array list of players that have been imported from a data
@@ -184,12 +431,15 @@ public class FrontEnd {
     public static ArrayList<Player> readPlayers(String filename) {
         ArrayList<Player> importList = new ArrayList<>();
 
-        try {
-            FileInputStream readData = new FileInputStream(filename);
-            ObjectInputStream readStream = new ObjectInputStream(readData);
+        try (FileChannel in = FileChannel.open(Paths.get(filename),
+                StandardOpenOption.READ)) {
+            if (ProfileCodec.isProfileFile(in)) {
+                return ProfileCodec.readAll(in);
+            }
+            ObjectInputStream readStream = new ObjectInputStream(
+                    Channels.newInputStream(in));
             ArrayList<Player> newList = (ArrayList<Player>) (readStream
                     .readObject());
-            readStream.close();
             return newList;
 
         } catch (Exception e) {
@@ -200,6 +450,60 @@ public class FrontEnd {
         return importList;
     }
 
+    /**
+     * Finds one player in a data file. Files in the binary format are read
+     * through without decoding any other player, older files have to be
+     * imported in full.
+     * 
+     * @param filename the name of the data file.
+     * @param name     the name of the player.
+     * @return the player, or null if the file does not exist or has no player
+     *         with that name.
+     */
+    public static Player findPlayer(String filename, String name) {
+        if (new File(filename).length() == 0) {
+            return null;
+        }
+        try (FileChannel in = FileChannel.open(Paths.get(filename),
+                StandardOpenOption.READ)) {
+            if (ProfileCodec.isProfileFile(in)) {
+                return ProfileCodec.find(in, name);
+            }
+        } catch (IOException ioe) {
+            ioe.printStackTrace();
+            return null;
+        }
+        ArrayList<Player> playerList = readPlayers(filename);
+        for (int i = playerList.size() - 1; i >= 0; i--) {
+            if (playerList.get(i).getName().equals(name)) {
+                return playerList.get(i);
+            }
+        }
+        return null;
+    }
+
+    /**
+     * Passes every player in a data file to the action. Files in the binary
+     * format are read a batch at a time instead of all at once.
+     * 
+     * @param filename the name of the data file.
+     * @param action   the action performed on each player.
+     */
+    public static void forEachPlayer(String filename,
+            Consumer<Player> action) {
+        try (FileChannel in = FileChannel.open(Paths.get(filename),
+                StandardOpenOption.READ)) {
+            if (ProfileCodec.isProfileFile(in)) {
+                ProfileCodec.forEach(in, action);
+                return;
+            }
+        } catch (IOException ioe) {
+            ioe.printStackTrace();
+            return;
+        }
+        readPlayers(filename).forEach(action);
+    }
+
     /**
      * Safely confirms a user's choice between yes (y) and no (n).
      * 
@@ -207,7 +511,7 @@ public class FrontEnd {
      * @return true if the user entered y, false if n.
      */
     public static boolean getYNConfirm(String message) {
-        Scanner in = new Scanner(System.in);
+        Scanner in = ConsoleStrategy.getInput();
 
         while (true) {
             System.out.print(message);
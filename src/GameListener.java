@@ -0,0 +1,132 @@
+/**
+ * A game listener is told what happens during a hand: each card drawn, the
+ * player standing, and how the hand ended. Player.playHand() and
+ * Dealer.playHand() only report these events, so the rules never build
+ * strings or write to the console themselves. {@link ConsoleRenderer} shows
+ * hands at the terminal, and {@link #NONE} ignores them for hands played
+ * without anyone watching, such as in the simulator.
+ *
+ * <p>
+ * Every method does nothing unless it is overridden, so a listener only needs
+ * to implement the events it uses.
+ *
+ * @author gunnarvonbergen
+ *
+ */
+public interface GameListener {
+
+    /**
+     * The ways a hand can end, from the player's side of the table.
+     */
+    enum Outcome {
+        /** The player reached 21 with their first two cards. */
+        PLAYER_BLACKJACK,
+        /** The player reached 21 with more than two cards. */
+        PLAYER_TWENTY_ONE,
+        /** The player went over 21. */
+        PLAYER_BUST,
+        /** The player stood on a higher hand than the dealer. */
+        PLAYER_HIGHER,
+        /** The dealer finished on a higher hand than the player. */
+        DEALER_HIGHER,
+        /** The dealer went over 21. */
+        DEALER_BUST,
+        /** The player and the dealer tied. */
+        PUSH
+    }
+
+    /**
+     * A listener that ignores every event.
+     */
+    GameListener NONE = new GameListener() {
+    };
+
+    /**
+     * Called before the player's first card is drawn.
+     *
+     * @param player the player starting a hand.
+     * @param dealer the dealer the hand is played against.
+     */
+    default void handStarted(Player player, Dealer dealer) {
+    }
+
+    /**
+     * Called after a card is added to a player's or a dealer's hand.
+     *
+     * @param player the player or dealer who drew the card.
+     * @param card   the card that was drawn.
+     */
+    default void cardDrawn(Player player, Card card) {
+    }
+
+    /**
+     * Called when the player has stood and the dealer has played out their
+     * hand, before the hands are compared.
+     *
+     * @param player the player who stood.
+     * @param dealer the dealer, holding their final hand.
+     */
+    default void playerStood(Player player, Dealer dealer) {
+    }
+
+    /**
+     * Called when the dealer reaches 21 with their first two cards.
+     *
+     * @param dealer the dealer with a blackjack.
+     */
+    default void dealerBlackjack(Dealer dealer) {
+    }
+
+    /**
+     * Called once a hand has ended and the stats have been updated.
+     *
+     * @param player  the player whose hand ended.
+     * @param dealer  the dealer the hand was played against.
+     * @param outcome how the hand ended.
+     */
+    default void handEnded(Player player, Dealer dealer, Outcome outcome) {
+    }
+
+    /**
+     * Returns a listener that passes every event to this listener and then
+     * to the next one.
+     *
+     * @param next the listener told about each event second.
+     * @return a listener combining both.
+     */
+    default GameListener andThen(GameListener next) {
+        GameListener first = this;
+        return new GameListener() {
+            @Override
+            public void handStarted(Player player, Dealer dealer) {
+                first.handStarted(player, dealer);
+                next.handStarted(player, dealer);
+            }
+
+            @Override
+            public void cardDrawn(Player player, Card card) {
+                first.cardDrawn(player, card);
+                next.cardDrawn(player, card);
+            }
+
+            @Override
+            public void playerStood(Player player, Dealer dealer) {
+                first.playerStood(player, dealer);
+                next.playerStood(player, dealer);
+            }
+
+            @Override
+            public void dealerBlackjack(Dealer dealer) {
+                first.dealerBlackjack(dealer);
+                next.dealerBlackjack(dealer);
+            }
+
+            @Override
+            public void handEnded(Player player, Dealer dealer,
+                    Outcome outcome) {
+                first.handEnded(player, dealer, outcome);
+                next.handEnded(player, dealer, outcome);
+            }
+        };
+    }
+}
@@ -0,0 +1,276 @@
+import java.util.AbstractList;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.List;
+import java.util.RandomAccess;
+import java.util.function.Predicate;
+import java.util.function.UnaryOperator;
+
+/**
+ * A hand is the array list of cards held by a player or dealer. Along with
+ * the cards, it keeps a running hard total (every ace counted as 1) and the
+ * number of aces, which are updated whenever a card is added or removed. This
+ * means the value of a hand can be read at any time without looping through
+ * its cards again. Every way of changing the hand goes through the methods
+ * that keep the totals, including changes made through its iterators and
+ * through a subList() view.
+ *
+ * @author gunnarvonbergen
+ *
+ */
+public class Hand extends ArrayList<Card> {
+
+    private static final long serialVersionUID = 1L;
+
+    private int hardTotal;
+
+    private int aces;
+
+    /**
+     * Creates an empty hand.
+     */
+    public Hand() {
+        super();
+    }
+
+    /**
+     * Creates a hand holding the given cards.
+     *
+     * @param cards the cards to put in the hand.
+     */
+    public Hand(Collection<? extends Card> cards) {
+        super(cards);
+        recount();
+    }
+
+    /**
+     * Returns the best value of the hand. One ace is counted as 11 if that
+     * does not bust the hand, all other aces are counted as 1.
+     *
+     * @return the numerical value of the hand.
+     */
+    public int getValue() {
+        if (aces > 0 && hardTotal <= 11) {
+            return hardTotal + 10;
+        }
+        return hardTotal;
+    }
+
+    /**
+     * Checks whether an ace is being counted as 11.
+     *
+     * @return true if the hand is soft.
+     */
+    public boolean isSoft() {
+        return aces > 0 && hardTotal <= 11;
+    }
+
+    /**
+     * Returns the value of the hand with every ace counted as 1.
+     *
+     * @return the hard total of the hand.
+     */
+    public int getHardTotal() {
+        return hardTotal;
+    }
+
+    /**
+     * Returns how many aces are in the hand.
+     *
+     * @return the number of aces.
+     */
+    public int getAces() {
+        return aces;
+    }
+
+    private void count(Card card, int direction) {
+        hardTotal += direction * card.getValue();
+        if (card.isAce()) {
+            aces += direction;
+        }
+    }
+
+    private void recount() {
+        hardTotal = 0;
+        aces = 0;
+        for (Card card : this) {
+            count(card, 1);
+        }
+    }
+
+    @Override
+    public boolean add(Card card) {
+        super.add(card);
+        count(card, 1);
+        return true;
+    }
+
+    @Override
+    public void add(int index, Card card) {
+        super.add(index, card);
+        count(card, 1);
+    }
+
+    @Override
+    public Card set(int index, Card card) {
+        Card old = super.set(index, card);
+        count(old, -1);
+        count(card, 1);
+        return old;
+    }
+
+    @Override
+    public Card remove(int index) {
+        Card old = super.remove(index);
+        count(old, -1);
+        return old;
+    }
+
+    @Override
+    public boolean remove(Object card) {
+        if (super.remove(card)) {
+            count((Card) card, -1);
+            return true;
+        }
+        return false;
+    }
+
+    @Override
+    public void clear() {
+        super.clear();
+        hardTotal = 0;
+        aces = 0;
+    }
+
+    // Bulk changes are rare, so they simply count the whole hand again.
+
+    @Override
+    public boolean addAll(Collection<? extends Card> cards) {
+        boolean changed = super.addAll(cards);
+        recount();
+        return changed;
+    }
+
+    @Override
+    public boolean addAll(int index, Collection<? extends Card> cards) {
+        boolean changed = super.addAll(index, cards);
+        recount();
+        return changed;
+    }
+
+    @Override
+    public boolean removeAll(Collection<?> cards) {
+        boolean changed = super.removeAll(cards);
+        recount();
+        return changed;
+    }
+
+    @Override
+    public boolean retainAll(Collection<?> cards) {
+        boolean changed = super.retainAll(cards);
+        recount();
+        return changed;
+    }
+
+    @Override
+    public boolean removeIf(Predicate<? super Card> filter) {
+        boolean changed = super.removeIf(filter);
+        recount();
+        return changed;
+    }
+
+    @Override
+    protected void removeRange(int fromIndex, int toIndex) {
+        super.removeRange(fromIndex, toIndex);
+        recount();
+    }
+
+    @Override
+    public void replaceAll(UnaryOperator<Card> operator) {
+        super.replaceAll(operator);
+        recount();
+    }
+
+    /**
+     * Returns a view of part of the hand. Unlike ArrayList's own view, which
+     * writes straight into the list's array, every change made through this
+     * view goes through the hand, so the totals stay correct.
+     *
+     * @param fromIndex the index of the first card in the view.
+     * @param toIndex   the index after the last card in the view.
+     * @return a list backed by the hand.
+     */
+    @Override
+    public List<Card> subList(int fromIndex, int toIndex) {
+        if (fromIndex < 0 || toIndex > size() || fromIndex > toIndex) {
+            throw new IndexOutOfBoundsException("fromIndex: " + fromIndex
+                    + ", toIndex: " + toIndex + ", size: " + size());
+        }
+        return new View(this, fromIndex, toIndex - fromIndex);
+    }
+
+    /**
+     * A part of a hand. Reads and writes are passed on to the hand, shifted
+     * by the view's offset.
+     */
+    private static class View extends AbstractList<Card>
+            implements RandomAccess {
+
+        private final Hand hand;
+
+        private final int offset;
+
+        private int size;
+
+        View(Hand hand, int offset, int size) {
+            this.hand = hand;
+            this.offset = offset;
+            this.size = size;
+        }
+
+        @Override
+        public Card get(int index) {
+            return hand.get(offset + checkIndex(index, size));
+        }
+
+        @Override
+        public Card set(int index, Card card) {
+            return hand.set(offset + checkIndex(index, size), card);
+        }
+
+        @Override
+        public void add(int index, Card card) {
+            hand.add(offset + checkIndex(index, size + 1), card);
+            size++;
+            modCount++;
+        }
+
+        @Override
+        public Card remove(int index) {
+            Card old = hand.remove(offset + checkIndex(index, size));
+            size--;
+            modCount++;
+            return old;
+        }
+
+        @Override
+        protected void removeRange(int fromIndex, int toIndex) {
+            hand.removeRange(offset + fromIndex, offset + toIndex);
+            size -= toIndex - fromIndex;
+            modCount++;
+        }
+
+        @Override
+        public int size() {
+            return size;
+        }
+
+        private static int checkIndex(int index, int length) {
+            if (index < 0 || index >= length) {
+                throw new IndexOutOfBoundsException(
+                        "Index: " + index + ", size: " + length);
+            }
+            return index;
+        }
+    }
+}
@@ -0,0 +1,402 @@
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+/**
+ * The hand evaluator works out the exact expected value of hitting and of
+ * standing, given the player's hand, the dealer's up card and the cards that
+ * have not been seen yet. An expected value is the average result of the
+ * hand, counting a win as 1, a loss as -1 and a push as 0.
+ *
+ * <p>
+ * The evaluator follows the rules of Player.playHand(): reaching 21 wins
+ * straight away, and the dealer draws a card each time the player does, so a
+ * player who has hit n times faces a dealer holding n cards that have not
+ * been shown. Those cards are treated as still unknown, so a decision only
+ * ever uses what the player can see. Hitting is valued by trying every card
+ * that could be drawn and then playing on as well as possible, and standing
+ * uses {@link DealerProbabilities}. The value of every hand reached along the
+ * way is remembered in a least recently used cache, keyed by the cards left
+ * and the state of the hand, so later questions about the same shoe are
+ * answered from the cache.
+ *
+ * @author gunnarvonbergen
+ *
+ */
+public class HandEvaluator {
+
+    /**
+     * The number of hand values remembered by default.
+     */
+    public static final int DEFAULT_CACHE_SIZE = 1 << 18;
+
+    /**
+     * A remembered hand: the cards left, packed as in DealerProbabilities,
+     * and the player's hand, the up card and the dealer's hidden cards packed
+     * into an int.
+     */
+    private static final class Key {
+        final long composition;
+
+        final int state;
+
+        Key(long composition, int state) {
+            this.composition = composition;
+            this.state = state;
+        }
+
+        @Override
+        public boolean equals(Object other) {
+            if (!(other instanceof Key)) {
+                return false;
+            }
+            Key key = (Key) other;
+            return key.composition == composition && key.state == state;
+        }
+
+        @Override
+        public int hashCode() {
+            return Long.hashCode(composition * 0x9E3779B97F4A7C15L) ^ state;
+        }
+    }
+
+    /**
+     * A strategy that looks its decisions up in tables worked out by the
+     * evaluator for two card hands.
+     */
+    private static final class TableStrategy implements Strategy {
+        // Indexed by [hand total][dealer up card value], aces are 1.
+        private final boolean[][] hardHit = new boolean[22][11];
+
+        private final boolean[][] softHit = new boolean[22][11];
+
+        private final int decks;
+
+        TableStrategy(int decks) {
+            this.decks = decks;
+        }
+
+        @Override
+        public boolean decideToHit(Player player, Card dealerUpCard) {
+            int total = player.calculateHandValue();
+            if (total > 21) {
+                return false;
+            }
+            int up = dealerUpCard == null ? 10 : dealerUpCard.getValue();
+            if (player.isSoft()) {
+                return softHit[total][up];
+            }
+            return hardHit[total][up];
+        }
+
+        @Override
+        public String toString() {
+            return "Exact strategy for " + decks + " decks";
+        }
+    }
+
+    private final DealerProbabilities dealer;
+
+    private final Map<Key, Double> values;
+
+    /**
+     * Creates an evaluator for the default rules that remembers up to
+     * DEFAULT_CACHE_SIZE hands.
+     */
+    public HandEvaluator() {
+        this(TableRules.DEFAULT, DEFAULT_CACHE_SIZE);
+    }
+
+    /**
+     * Creates an evaluator for the default rules that remembers up to the
+     * given number of hands, and as many dealer hands, forgetting the least
+     * recently used first.
+     *
+     * @param cacheSize the most hands remembered, at least 1.
+     */
+    public HandEvaluator(int cacheSize) {
+        this(TableRules.DEFAULT, cacheSize);
+    }
+
+    /**
+     * Creates an evaluator that remembers up to the given number of hands,
+     * and as many dealer hands, forgetting the least recently used first.
+     * Only the rules' soft 17 setting matters, since the deck count comes
+     * from the cards given to each question.
+     *
+     * @param rules     the rules deciding when the dealer stops drawing.
+     * @param cacheSize the most hands remembered, at least 1.
+     */
+    public HandEvaluator(TableRules rules, int cacheSize) {
+        dealer = new DealerProbabilities(rules, cacheSize);
+        values = new LinkedHashMap<Key, Double>(16, 0.75f, true) {
+            private static final long serialVersionUID = 1L;
+
+            @Override
+            protected boolean removeEldestEntry(
+                    Map.Entry<Key, Double> eldest) {
+                return size() > cacheSize;
+            }
+        };
+    }
+
+    /**
+     * Returns the expected value of standing on the player's hand now.
+     *
+     * @param player the player deciding, holding their hand.
+     * @param dealer the dealer, holding the up card and any hidden cards.
+     * @param deck   the deck the rest of the cards come from.
+     * @return the expected value, from -1 to 1.
+     */
+    public double standValue(Player player, Dealer dealer, Deck deck) {
+        Hand hand = (Hand) player.getHand();
+        return standValue(hand.getHardTotal(), hand.getAces() > 0,
+                dealer.getHand().get(0).getValue(),
+                dealer.getHand().size() - 1, unseen(dealer, deck));
+    }
+
+    /**
+     * Returns the expected value of hitting the player's hand now, and then
+     * playing on as well as possible.
+     *
+     * @param player the player deciding, holding their hand.
+     * @param dealer the dealer, holding the up card and any hidden cards.
+     * @param deck   the deck the rest of the cards come from.
+     * @return the expected value, from -1 to 1.
+     */
+    public double hitValue(Player player, Dealer dealer, Deck deck) {
+        Hand hand = (Hand) player.getHand();
+        return hitValue(hand.getHardTotal(), hand.getAces() > 0,
+                dealer.getHand().get(0).getValue(),
+                dealer.getHand().size() - 1, unseen(dealer, deck));
+    }
+
+    /**
+     * Decides whether the player should hit, using every card still unseen.
+     * This can be used as a hint for a player at the console.
+     *
+     * @param player the player deciding, holding their hand.
+     * @param dealer the dealer, holding the up card and any hidden cards.
+     * @param deck   the deck the rest of the cards come from.
+     * @return true if hitting has the higher expected value.
+     */
+    public boolean shouldHit(Player player, Dealer dealer, Deck deck) {
+        return hitValue(player, dealer, deck) > standValue(player, dealer,
+                deck);
+    }
+
+    /**
+     * Returns the expected value of standing.
+     *
+     * @param hardTotal   the player's total with aces counted as 1.
+     * @param hasAce      true if the player holds an ace.
+     * @param up          the value of the dealer's up card, 1 for an ace.
+     * @param hidden      the number of cards the dealer holds face down.
+     * @param composition the number of unseen cards of each point value,
+     *                    including the dealer's hidden cards.
+     * @return the expected value, from -1 to 1.
+     */
+    public synchronized double standValue(int hardTotal, boolean hasAce,
+            int up, int hidden, int[] composition) {
+        return stand(hardTotal, hasAce, up, hidden, composition);
+    }
+
+    /**
+     * Returns the expected value of hitting, and then playing on as well as
+     * possible.
+     *
+     * @param hardTotal   the player's total with aces counted as 1.
+     * @param hasAce      true if the player holds an ace.
+     * @param up          the value of the dealer's up card, 1 for an ace.
+     * @param hidden      the number of cards the dealer holds face down.
+     * @param composition the number of unseen cards of each point value,
+     *                    including the dealer's hidden cards.
+     * @return the expected value, from -1 to 1.
+     * @throws IllegalArgumentException if no cards are left.
+     */
+    public synchronized double hitValue(int hardTotal, boolean hasAce,
+            int up, int hidden, int[] composition) {
+        int[] counts = composition.clone();
+        int remaining = 0;
+        for (int count : counts) {
+            remaining += count;
+        }
+        if (remaining == 0) {
+            throw new IllegalArgumentException("No cards are left to draw");
+        }
+        return hit(hardTotal, hasAce, up, hidden, counts, remaining,
+                DealerProbabilities.pack(counts));
+    }
+
+    /**
+     * Works out which two card hands should hit against each up card, from
+     * a freshly shuffled shoe.
+     *
+     * @param decks the number of decks in the shoe.
+     * @return a strategy that plays by the worked out table.
+     */
+    public Strategy strategy(int decks) {
+        TableStrategy strategy = new TableStrategy(decks);
+        fillTables(decks, strategy.hardHit, strategy.softHit);
+        return strategy;
+    }
+
+    /**
+     * Prints which two card hands should hit (H) or stand (S) against each
+     * up card, from a freshly shuffled shoe.
+     *
+     * @param decks the number of decks in the shoe.
+     */
+    public void displayStrategyTable(int decks) {
+        boolean[][] hardHit = new boolean[22][11];
+        boolean[][] softHit = new boolean[22][11];
+        fillTables(decks, hardHit, softHit);
+        StringBuilder out = new StringBuilder();
+        out.append(String.format("Exact strategy, %d decks\n", decks));
+        out.append("        2 3 4 5 6 7 8 9 T A\n");
+        for (int total = 4; total <= 20; total++) {
+            out.append(String.format("Hard %2d", total));
+            appendRow(out, hardHit[total]);
+        }
+        for (int total = 12; total <= 20; total++) {
+            out.append(String.format("Soft %2d", total));
+            appendRow(out, softHit[total]);
+        }
+        System.out.print(out);
+    }
+
+    private static void appendRow(StringBuilder out, boolean[] hit) {
+        for (int up = 2; up <= 11; up++) {
+            out.append(' ').append(hit[up == 11 ? 1 : up] ? 'H' : 'S');
+        }
+        out.append('\n');
+    }
+
+    /**
+     * Decides every table entry from a representative two card hand: a 2
+     * and a card up to 9 for hard 11 or less, a ten and another card above
+     * that, and an ace and another card for soft hands.
+     */
+    private void fillTables(int decks, boolean[][] hardHit,
+            boolean[][] softHit) {
+        int[] shoe = new Shoe(decks, 1.0, 0).getComposition();
+        for (int up = 1; up <= Card.VALUE_COUNT; up++) {
+            for (int total = 4; total <= 20; total++) {
+                int first = total <= 11 ? 2 : 10;
+                hardHit[total][up] = decide(shoe, up, first, total - first,
+                        false);
+            }
+            for (int total = 12; total <= 20; total++) {
+                softHit[total][up] = decide(shoe, up, 1, total - 11, true);
+            }
+        }
+    }
+
+    private synchronized boolean decide(int[] shoe, int up, int first,
+            int second, boolean hasAce) {
+        int[] counts = shoe.clone();
+        counts[up - 1]--;
+        counts[first - 1]--;
+        counts[second - 1]--;
+        int hard = first + second;
+        return hitValue(hard, hasAce, up, 0, counts) > stand(hard, hasAce, up,
+                0, counts);
+    }
+
+    /**
+     * Returns the unseen cards: those left in the deck and those the dealer
+     * holds face down.
+     */
+    private static int[] unseen(Dealer dealer, Deck deck) {
+        int[] composition = deck.getComposition();
+        ArrayList<Card> hand = dealer.getHand();
+        for (int i = 1; i < hand.size(); i++) {
+            composition[hand.get(i).getValue() - 1]++;
+        }
+        return composition;
+    }
+
+    private double stand(int hard, boolean ace, int up, int hidden,
+            int[] counts) {
+        int total = ace && hard <= 11 ? hard + 10 : hard;
+        double[] dealerTotals = dealer.finalTotals(up, up == 1, hidden,
+                counts);
+        double value = dealerTotals[DealerProbabilities.BUST];
+        for (int i = 0; i < DealerProbabilities.BUST; i++) {
+            int dealerTotal = 17 + i;
+            if (dealerTotal < total) {
+                value += dealerTotals[i];
+            } else if (dealerTotal > total) {
+                value -= dealerTotals[i];
+            }
+        }
+        return value;
+    }
+
+    /**
+     * Returns the value of a hand the player can still hit: the better of
+     * standing and hitting.
+     */
+    private double best(int hard, boolean ace, int up, int hidden,
+            int[] counts, int remaining, long key) {
+        if (remaining == 0) {
+            // The shoe would be reshuffled mid hand, which only happens
+            // with a handful of cards left. Counted as a push.
+            return 0;
+        }
+        Key state = new Key(key,
+                hard | (ace ? 1 << 5 : 0) | up << 6 | hidden << 10);
+        Double known = values.get(state);
+        if (known != null) {
+            return known;
+        }
+        double value = Math.max(stand(hard, ace, up, hidden, counts),
+                hit(hard, ace, up, hidden, counts, remaining, key));
+        values.put(state, value);
+        return value;
+    }
+
+    /**
+     * Tries every card the player could draw. The dealer then draws a card
+     * the player does not see, unless the hand is over.
+     */
+    private double hit(int hard, boolean ace, int up, int hidden,
+            int[] counts, int remaining, long key) {
+        double value = 0;
+        for (int card = 1; card <= Card.VALUE_COUNT; card++) {
+            int count = counts[card - 1];
+            if (count == 0) {
+                continue;
+            }
+            double chance = (double) count / remaining;
+            int nextHard = hard + card;
+            boolean nextAce = ace || card == 1;
+            int total = nextAce && nextHard <= 11 ? nextHard + 10 : nextHard;
+            if (total == 21) {
+                value += chance;
+            } else if (total > 21) {
+                value -= chance;
+            } else {
+                counts[card - 1]--;
+                value += chance * best(nextHard, nextAce, up, hidden + 1,
+                        counts, remaining - 1,
+                        key - (1L << DealerProbabilities.shift(card)));
+                counts[card - 1]++;
+            }
+        }
+        return value;
+    }
+
+    /**
+     * Prints the exact strategy table from the command line.
+     *
+     * @param args the number of decks, 6 if not given.
+     */
+    public static void main(String[] args) {
+        int decks = args.length > 0 ? Integer.parseInt(args[0]) : 6;
+        long start = System.nanoTime();
+        new HandEvaluator().displayStrategyTable(decks);
+        System.out.printf("Worked out in %.1f seconds.\n",
+                (System.nanoTime() - start) / 1e9);
+    }
+}
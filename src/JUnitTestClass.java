@@ -1,11 +1,129 @@
 import static org.junit.Assert.*;
+import static org.junit.Assume.assumeTrue;
 
+import java.io.File;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.ObjectOutputStream;
+import java.io.RandomAccessFile;
+import java.lang.management.ManagementFactory;
+import java.nio.file.Files;
 import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.List;
 
 import org.junit.Test;
 
+import com.sun.management.ThreadMXBean;
+
 public class JUnitTestClass {
 
+    // CARD TESTS
+
+    @Test
+    public void testCardCodes() {
+        Card queen = new Card("Queen", "Spades");
+        assertSame(Card.valueOf(queen.getCode()), queen.clone());
+        assertSame(Card.valueOf("Queen", "Spades"), queen.clone());
+        assertEquals(10, queen.getValue());
+        assertEquals("Q", queen.convertCardValue());
+        assertTrue(Card.valueOf("Ace", "Clubs").isAce());
+        assertEquals(1, Card.valueOf("Ace", "Clubs").getValue());
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void testUnknownCardRank() {
+        new Card("Joker", "Hearts");
+    }
+
+    @Test
+    public void testCardRendererLayout() {
+        Card ace = Card.valueOf("Ace", "Spades");
+        Card ten = Card.valueOf("10", "Hearts");
+        assertEquals("│ A     │", CardRenderer.row(ace, 1));
+        assertEquals(CardRenderer.ROWS,
+                CardRenderer.render(ace).split("\n").length);
+
+        // Two cards share each line, separated by a space.
+        String[] lines = CardRenderer.render(Arrays.asList(ace, ten))
+                .split("\n");
+        assertEquals(CardRenderer.ROWS, lines.length);
+        assertEquals("│   ♠   │ │   ♥   │", lines[3]);
+
+        // A ninth card starts a second line of cards.
+        ArrayList<Card> hand = new ArrayList<>();
+        for (int i = 0; i <= CardRenderer.CARDS_PER_LINE; i++) {
+            hand.add(Card.valueOf(i));
+        }
+        lines = CardRenderer.render(hand).split("\n");
+        assertEquals(2 * CardRenderer.ROWS, lines.length);
+        assertEquals("│     9 │", lines[CardRenderer.ROWS + 5]);
+    }
+
+    //
+    // END CARD TESTS
+    //
+
+    // HAND TESTS
+
+    @Test
+    public void testHandValueTracksAces() {
+        Player player = new Player("Test", 0, 0, 0);
+        player.getHand().add(Card.valueOf("Ace", "Hearts"));
+        player.getHand().add(Card.valueOf("6", "Hearts"));
+        assertEquals(17, player.calculateHandValue());
+        assertTrue(player.isSoft());
+
+        player.getHand().add(Card.valueOf("Ace", "Spades"));
+        assertEquals(18, player.calculateHandValue());
+
+        player.getHand().add(Card.valueOf("King", "Spades"));
+        assertEquals(18, player.calculateHandValue());
+        assertFalse(player.isSoft());
+
+        player.getHand().remove(0);
+        assertEquals(17, player.calculateHandValue());
+
+        player.getHand().clear();
+        assertEquals(0, player.calculateHandValue());
+    }
+
+    @Test
+    public void testHandBulkChangesKeepTotals() {
+        Hand hand = new Hand(Arrays.asList(Card.valueOf("10", "Hearts"),
+                Card.valueOf("5", "Hearts"), Card.valueOf("2", "Clubs")));
+        assertEquals(17, hand.getValue());
+
+        hand.replaceAll(card -> Card.valueOf("Ace", card.getSuit()));
+        assertEquals(3, hand.getHardTotal());
+        assertEquals(3, hand.getAces());
+        assertTrue(hand.isSoft());
+
+        // Writes through a view of part of the hand reach the totals.
+        List<Card> tail = hand.subList(1, 3);
+        tail.set(0, Card.valueOf("9", "Spades"));
+        assertEquals(11, hand.getHardTotal());
+        tail.add(Card.valueOf("King", "Spades"));
+        assertEquals(21, hand.getHardTotal());
+        assertEquals(4, hand.size());
+        tail.remove(0);
+        assertEquals(12, hand.getHardTotal());
+        tail.replaceAll(card -> Card.valueOf("3", "Clubs"));
+        assertEquals(7, hand.getHardTotal());
+        tail.sort(Comparator.comparingInt(Card::getCode));
+        tail.subList(0, 1).set(0, Card.valueOf("4", "Clubs"));
+        assertEquals(8, hand.getHardTotal());
+        tail.clear();
+        assertEquals(1, hand.size());
+        assertEquals(1, hand.getHardTotal());
+        assertEquals(1, hand.getAces());
+    }
+
+    //
+    // END HAND TESTS
+    //
+
     // DECK TESTS
     
     @Test
@@ -44,9 +162,818 @@ public class JUnitTestClass {
     }
     
     
+    @Test
+    public void testShoeDrawsEveryCardOnce() {
+        Shoe shoe = new Shoe(2, 1.0, 7);
+        int[] counts = new int[Card.DECK_SIZE];
+        for (int i = 0; i < 2 * Card.DECK_SIZE; i++) {
+            counts[shoe.draw().getCode()]++;
+        }
+        for (int count : counts) {
+            assertEquals(2, count);
+        }
+        assertEquals(0, shoe.getRemainingCards());
+    }
+
+    @Test
+    public void testShoeCutCard() {
+        Shoe shoe = new Shoe(1, 0.5, 7);
+        for (int i = 0; i < 25; i++) {
+            shoe.draw();
+        }
+        assertFalse(shoe.shuffleIfNeeded());
+        shoe.draw();
+        assertTrue(shoe.isCutCardReached());
+        assertTrue(shoe.shuffleIfNeeded());
+        assertEquals(Card.DECK_SIZE, shoe.getRemainingCards());
+    }
+
+    @Test
+    public void testSeededShuffleIsReproducible() {
+        Deck first = new Deck(99);
+        Deck second = new Deck(99);
+        first.shuffle();
+        second.shuffle();
+        assertEquals(first.getCards(), second.getCards());
+
+        // A cloned shoe replays the same cards, even across a reshuffle.
+        Shoe shoe = new Shoe(1, 1.0, 5);
+        Shoe replay = shoe.clone();
+        for (int i = 0; i < 3 * Card.DECK_SIZE; i++) {
+            assertSame(shoe.draw(), replay.draw());
+        }
+    }
+
     //
     // END DECK TESTS
     //
-    
 
+    // SIMULATOR TESTS
+
+    @Test
+    public void testParallelSimulationIsReproducible() {
+        ParallelSimulator single = new ParallelSimulator(1, 17);
+        ParallelSimulator multi = new ParallelSimulator(3, 17);
+        SimulationResult first = single.run(200_000, 42);
+        SimulationResult second = multi.run(200_000, 42);
+        single.shutdown();
+        multi.shutdown();
+
+        assertEquals(200_000, first.getHands());
+        assertEquals(first.getWins(), second.getWins());
+        assertEquals(first.getLosses(), second.getLosses());
+        assertEquals(first.getPushes(), second.getPushes());
+        assertEquals(first.getBlackjacks(), second.getBlackjacks());
+    }
+
+    @Test
+    public void testBasicStrategyDecisions() {
+        Player player = new Player("Test", 0, 0, 0);
+        player.getHand().add(new Card("10", "Hearts"));
+        player.getHand().add(new Card("6", "Spades"));
+        // Hard 16: stand against a 6, hit against a 10.
+        assertFalse(BasicStrategy.INSTANCE.decideToHit(player,
+                new Card("6", "Clubs")));
+        assertTrue(BasicStrategy.INSTANCE.decideToHit(player,
+                new Card("King", "Clubs")));
+
+        player.getHand().clear();
+        player.getHand().add(new Card("Ace", "Hearts"));
+        player.getHand().add(new Card("7", "Spades"));
+        // Soft 18: stand against a 2, hit against a 9.
+        assertFalse(BasicStrategy.INSTANCE.decideToHit(player,
+                new Card("2", "Clubs")));
+        assertTrue(BasicStrategy.INSTANCE.decideToHit(player,
+                new Card("9", "Clubs")));
+    }
+
+    @Test
+    public void testGameListenerEvents() {
+        Deck deck = new Deck();
+        ArrayList<Card> cards = deck.getCards();
+        cards.clear();
+        cards.add(new Card("10", "Hearts"));
+        cards.add(new Card("6", "Spades"));
+        cards.add(new Card("9", "Clubs"));
+        cards.add(new Card("8", "Diamonds"));
+
+        ArrayList<String> events = new ArrayList<>();
+        GameListener recorder = new GameListener() {
+            @Override
+            public void handStarted(Player player, Dealer dealer) {
+                events.add("start");
+            }
+
+            @Override
+            public void cardDrawn(Player player, Card card) {
+                events.add(player.getName() + " " + card.getValue());
+            }
+
+            @Override
+            public void playerStood(Player player, Dealer dealer) {
+                events.add("stand");
+            }
+
+            @Override
+            public void handEnded(Player player, Dealer dealer,
+                    GameListener.Outcome outcome) {
+                events.add(outcome.name());
+            }
+        };
+        Player player = new Player("Test", 0, 0, 0);
+        Dealer dealer = new Dealer("Dealer", 0, 0, 0);
+        player.setStrategy((self, upCard) -> false);
+        player.setGameListener(GameListener.NONE.andThen(recorder));
+        dealer.setGameListener(recorder);
+
+        // 16 stands against the dealer's 9, who draws an 8 and stops at 17.
+        player.playHand(deck, dealer);
+        assertEquals(Arrays.asList("start", "Test 10", "Test 6", "Dealer 9",
+                "Dealer 8", "stand", "DEALER_HIGHER"), events);
+        assertEquals(1, player.getLosses());
+        assertEquals(1, dealer.getWins());
+    }
+
+    @Test
+    public void testDealerProbabilities() {
+        DealerProbabilities dealer = new DealerProbabilities();
+        int[] sixAndAce = new int[Card.VALUE_COUNT];
+        sixAndAce[0] = 1;
+        sixAndAce[5] = 1;
+        // A 10 then a 6 and an ace stands on 17, an ace first makes 21.
+        double[] totals = dealer.finalTotals(10, false, sixAndAce);
+        assertEquals(0.5, totals[0], 1e-12);
+        assertEquals(0.5, totals[4], 1e-12);
+
+        // An ace and a 6 is a soft 17, which the dealer hits.
+        int[] sixAndTen = new int[Card.VALUE_COUNT];
+        sixAndTen[5] = 1;
+        sixAndTen[9] = 1;
+        totals = dealer.finalTotals(1, true, sixAndTen);
+        assertEquals(0.5, totals[0], 1e-12);
+        assertEquals(0.5, totals[4], 1e-12);
+
+        // From a full shoe the chances add up to 1, and a dealer showing a
+        // 6 busts about 44% of the time when hitting soft 17.
+        Shoe shoe = new Shoe(6, 0.75, 3);
+        Card six = Card.valueOf("6", "Hearts");
+        int[] composition = shoe.getComposition();
+        composition[5]--;
+        totals = dealer.finalTotals(6, false, composition);
+        double sum = 0;
+        for (double chance : totals) {
+            sum += chance;
+        }
+        assertEquals(1.0, sum, 1e-9);
+        assertEquals(0.439, totals[DealerProbabilities.BUST], 0.001);
+
+        // Asking again is answered from the cache.
+        double hitRate = dealer.getHitRate();
+        assertArrayEquals(totals, dealer.finalTotals(6, false, composition),
+                0.0);
+        assertTrue(dealer.getHitRate() > hitRate);
+        assertTrue(dealer.getCacheSize() > 0);
+
+        // The shoe's counts follow the cards it deals.
+        for (int i = 0; i < 100; i++) {
+            shoe.draw();
+        }
+        Deck remaining = new Deck();
+        remaining.getCards().clear();
+        remaining.getCards().addAll(shoe.getCards());
+        assertArrayEquals(remaining.getComposition(), shoe.getComposition());
+        assertNotNull(dealer.finalTotals(six, shoe));
+    }
+
+    @Test
+    public void testHandEvaluator() {
+        HandEvaluator evaluator = new HandEvaluator();
+        int[] shoe = new Shoe(1, 1.0, 0).getComposition();
+
+        // Hitting a hard 20 only wins with an ace, and loses otherwise.
+        int[] unseen = shoe.clone();
+        unseen[9] -= 3;
+        double ace = 4.0 / 49;
+        assertEquals(ace - (1 - ace),
+                evaluator.hitValue(20, false, 10, 0, unseen), 1e-12);
+
+        // Only tens left: a dealer showing a ten ends on 20, beating a 19.
+        int[] tens = new int[Card.VALUE_COUNT];
+        tens[9] = 10;
+        assertEquals(-1.0, evaluator.standValue(19, false, 10, 0, tens),
+                1e-12);
+        assertEquals(0.0, evaluator.standValue(20, false, 10, 0, tens),
+                1e-12);
+
+        // The same questions asked through the game's objects.
+        Deck deck = new Deck();
+        Player player = new Player("Test", 0, 0, 0);
+        Dealer dealer = new Dealer("Dealer", 0, 0, 0);
+        for (Card card : new Card[] { Card.valueOf("10", "Hearts"),
+                Card.valueOf("5", "Hearts"), Card.valueOf("8", "Clubs") }) {
+            deck.getCards().remove(card);
+        }
+        player.getHand().add(Card.valueOf("10", "Hearts"));
+        player.getHand().add(Card.valueOf("5", "Hearts"));
+        dealer.getHand().add(Card.valueOf("8", "Clubs"));
+        // Hard 15 against an 8.
+        assertTrue(evaluator.shouldHit(player, dealer, deck));
+
+        Strategy exact = evaluator.strategy(1);
+        player.getHand().add(Card.valueOf("5", "Clubs"));
+        assertFalse(exact.decideToHit(player, Card.valueOf("6", "Clubs")));
+    }
+
+    @Test
+    public void testTableRulesComparison() {
+        TableRules standard = TableRules.DEFAULT;
+        TableRules stand17 = standard.withHitSoft17(false);
+        assertTrue(standard.dealerHits(17, true));
+        assertFalse(stand17.dealerHits(17, true));
+        assertFalse(standard.dealerHits(17, false));
+        assertEquals("S17, 6 decks, 75% dealt, BJ pays 3:2",
+                stand17.toString());
+
+        // A dealer playing by S17 stands on a soft 17.
+        Dealer dealer = new Dealer("Dealer", 0, 0, 0, stand17);
+        dealer.setGameListener(GameListener.NONE);
+        dealer.getHand().add(Card.valueOf("Ace", "Hearts"));
+        dealer.getHand().add(Card.valueOf("6", "Hearts"));
+        dealer.playHand(new Deck(), new Player("Test", 0, 0, 0));
+        assertEquals(2, dealer.getHand().size());
+
+        // Paying 6:5 changes nothing but the payout, so on the same shoes the
+        // difference is measured far more precisely than either edge.
+        RuleComparison comparison = new RuleComparison(2,
+                BasicStrategy.INSTANCE, standard,
+                standard.withBlackjackPayout(TableRules.PAYS_6_TO_5));
+        RuleComparison.Report report = comparison.run(
+                4 * ParallelSimulator.CHUNK_SIZE, 7);
+        comparison.shutdown();
+        assertEquals(report.getResult(0).getHands(),
+                report.getResult(1).getHands());
+        assertEquals(report.getResult(0).getBlackjacks(),
+                report.getResult(1).getBlackjacks());
+        // Four chunks give three degrees of freedom for the margins.
+        assertEquals(3.1824, SimulationResult.t95(3), 1e-4);
+        assertEquals(2.2281, SimulationResult.t95(10), 1e-3);
+        assertEquals(SimulationResult.Z_95, SimulationResult.t95(1L << 40),
+                1e-6);
+        double difference = report.getDifference(1);
+        assertTrue(difference - report.getDifferenceMargin(1) > 0);
+        assertTrue(report.getDifferenceMargin(1)
+                < report.getResult(1).getHouseEdgeMargin());
+    }
+
+    @Test
+    public void testVarianceReducedSimulation() {
+        // Merged halves give the same stats as one stream.
+        RunningStats all = new RunningStats();
+        RunningStats low = new RunningStats();
+        RunningStats high = new RunningStats();
+        for (int i = 1; i <= 10; i++) {
+            all.add(i);
+            (i <= 4 ? low : high).add(i);
+        }
+        low.merge(high);
+        assertEquals(5.5, low.getMean(), 1e-12);
+        assertEquals(all.getVariance(), low.getVariance(), 1e-12);
+        assertEquals(55, low.getSum(), 1e-9);
+
+        // A copied shoe picks up where the original is.
+        Shoe shoe = new Shoe(1, 1.0, 3);
+        Shoe copy = new Shoe(1, 1.0, 4);
+        for (int i = 0; i < 5; i++) {
+            shoe.draw();
+        }
+        copy.copyFrom(shoe);
+        assertEquals(shoe.getCards(), copy.getCards());
+        assertArrayEquals(shoe.getComposition(), copy.getComposition());
+
+        // Both hands of a pair with the same strategy always
+        // have the same outcome.
+        PairedSimulator same = new PairedSimulator(5, BasicStrategy.INSTANCE,
+                BasicStrategy.INSTANCE, TableRules.DEFAULT);
+        same.run(20_000);
+        assertEquals(0.0, same.getDifference(), 0);
+        assertEquals(0.0, same.getMargin(), 0);
+        // Even when a dealt out shoe is shuffled in the middle of a hand.
+        PairedSimulator dealtOut = new PairedSimulator(5,
+                BasicStrategy.INSTANCE, BasicStrategy.INSTANCE,
+                TableRules.DEFAULT.withDecks(1).withPenetration(1.0));
+        dealtOut.run(20_000);
+        assertEquals(0.0, dealtOut.getDifference(), 0);
+        assertEquals(0.0, dealtOut.getMargin(), 0);
+
+        // Runs stop once the margin is reached.
+        SimulationResult plain = new Simulator(5, BasicStrategy.INSTANCE,
+                TableRules.DEFAULT).runUntil(0.02, 10_000_000);
+        assertTrue(plain.getHouseEdgeMargin() <= 0.02);
+        assertTrue(plain.getHands() < 10_000_000);
+        PairedSimulator paired = new PairedSimulator(5,
+                new ThresholdStrategy(17), BasicStrategy.INSTANCE,
+                TableRules.DEFAULT);
+        long pairs = paired.runUntil(0.02, 5_000_000);
+        assertTrue(paired.getMargin() <= 0.02);
+        assertTrue(pairs < 5_000_000);
+        // Sharing the cards needs fewer hands than comparing the strategies
+        // on hands of their own.
+        assertTrue(paired.getEfficiency() > 1);
+    }
+
+    @Test
+    public void testTableReusesEverything() {
+        Table table = new Table(TableRules.DEFAULT, 9);
+        Player player = new Player("Test", 0, 0, 0);
+        player.setStrategy(BasicStrategy.INSTANCE);
+        player.setGameListener(GameListener.NONE);
+        table.getDealer().setGameListener(GameListener.NONE);
+        table.seat(player);
+        Dealer dealer = table.getDealer();
+        Shoe shoe = table.getShoe();
+
+        table.resetForNextHand();
+        table.playHand();
+        assertTrue(player.getHand().size() >= 2);
+        table.resetForNextHand();
+        assertTrue(player.getHand().isEmpty());
+        assertTrue(dealer.getHand().isEmpty());
+        assertFalse(dealer.getBusted());
+
+        // Hand after hand is played with the same objects, and once the
+        // hands' lists have grown, without allocating anything.
+        for (int i = 0; i < 20_000; i++) {
+            table.resetForNextHand();
+            table.playHand();
+        }
+        assertSame(dealer, table.getDealer());
+        assertSame(shoe, table.getShoe());
+        assertSame(player, table.getPlayer());
+
+        java.lang.management.ThreadMXBean bean = ManagementFactory
+                .getThreadMXBean();
+        assumeTrue(bean instanceof ThreadMXBean);
+        ThreadMXBean threads = (ThreadMXBean) bean;
+        assumeTrue(threads.isThreadAllocatedMemorySupported());
+        long thread = Thread.currentThread().getId();
+        long before = threads.getThreadAllocatedBytes(thread);
+        for (int i = 0; i < 20_000; i++) {
+            table.resetForNextHand();
+            table.playHand();
+        }
+        long allocated = threads.getThreadAllocatedBytes(thread) - before;
+        assertTrue("Allocated " + allocated + " bytes", allocated < 1024);
+    }
+
+    //
+    // END SIMULATOR TESTS
+    //
+
+    // PROFILE TESTS
+
+    @Test
+    public void testProfileStoreSaveAndReload() throws IOException {
+        File base = File.createTempFile("profiles", "");
+        try {
+            ProfileStore store = new ProfileStore(base.getPath());
+            // Enough profiles to make the index grow more than once.
+            for (int i = 0; i < 3000; i++) {
+                store.save(new Player("player" + i, i, i + 1, i % 7));
+            }
+            store.save(new Player("player42", 100, 50, 3));
+            assertEquals(3000, store.size());
+            store.close();
+
+            store = new ProfileStore(base.getPath());
+            Player player = store.load("player42");
+            assertEquals(100, player.getWins());
+            assertEquals(50, player.getLosses());
+            assertEquals(3, player.getBlackjacks());
+            assertEquals(2999, store.load("player2999").getWins());
+            assertNull(store.load("nobody"));
+            store.close();
+        } finally {
+            new File(base.getPath() + ".dat").delete();
+            new File(base.getPath() + ".idx").delete();
+            base.delete();
+        }
+    }
+
+    @Test
+    public void testProfileStoreConcurrentUpdates()
+            throws IOException, InterruptedException {
+        File base = File.createTempFile("profiles", "");
+        try {
+            ProfileStore store = new ProfileStore(base.getPath());
+            Thread[] threads = new Thread[8];
+            for (int t = 0; t < threads.length; t++) {
+                String prefix = "thread" + t + "-";
+                threads[t] = new Thread(() -> {
+                    for (int i = 0; i < 1000; i++) {
+                        store.add("shared", 1, 0, 0);
+                        // New players grow the files and rebuild the index
+                        // while the other threads are using them.
+                        store.add(prefix + i, 0, 1, 0);
+                    }
+                });
+                threads[t].start();
+            }
+            for (Thread thread : threads) {
+                thread.join();
+            }
+            assertEquals(8000, store.load("shared").getWins());
+            assertEquals(8001, store.size());
+            assertEquals(1, store.load("thread7-999").getLosses());
+            store.close();
+
+            ProfileStore reopened = new ProfileStore(base.getPath());
+            assertEquals(8000, reopened.load("shared").getWins());
+            reopened.close();
+        } finally {
+            new File(base.getPath() + ".dat").delete();
+            new File(base.getPath() + ".idx").delete();
+            base.delete();
+        }
+    }
+
+    @Test
+    public void testPlayerRegistry() {
+        PlayerRegistry registry = new PlayerRegistry();
+        for (int i = 0; i < 1000; i++) {
+            registry.put(new Player("player" + i, i, 0, 0));
+        }
+        // Names built at run time are different String objects.
+        String name = new StringBuilder("player").append(7).toString();
+        registry.put(new Player(name, 70, 1, 2));
+        assertEquals(1000, registry.size());
+        assertEquals(70, registry.get("player7").getWins());
+        assertEquals(999, registry.get("player999").getWins());
+        assertNull(registry.get("player1000"));
+
+        ArrayList<Player> players = registry.toList();
+        assertTrue(FrontEnd.isInList(new Player(name, 0, 0, 0), players));
+        assertEquals("player7",
+                players.get(FrontEnd.indexOfPlayer(name, players)).getName());
+    }
+
+    @Test
+    public void testProfileWriterCombinesChanges() throws IOException {
+        File base = File.createTempFile("profiles", "");
+        try {
+            ProfileStore store = new ProfileStore(base.getPath());
+            store.save(new Player("ann", 10, 5, 1));
+            // A long interval, so nothing is written until close().
+            ProfileWriter writer = new ProfileWriter(store, 60_000, 1024);
+            for (int i = 0; i < 100; i++) {
+                writer.record("ann", 1, 0, 0);
+                writer.record("bob", 0, 1, 0);
+            }
+            writer.record("ann", 0, 0, 2);
+            assertEquals(10, store.load("ann").getWins());
+            writer.close();
+
+            assertEquals(110, store.load("ann").getWins());
+            assertEquals(3, store.load("ann").getBlackjacks());
+            assertEquals(100, store.load("bob").getLosses());
+            store.close();
+        } finally {
+            new File(base.getPath() + ".dat").delete();
+            new File(base.getPath() + ".idx").delete();
+            base.delete();
+        }
+    }
+
+    @Test
+    public void testProfileWriterFallsBackOnce() throws IOException {
+        File base = File.createTempFile("profiles", "");
+        try {
+            ProfileStore store = new ProfileStore(base.getPath());
+            boolean[] failing = new boolean[1];
+            ProfileLog log = new ProfileLog(base.getPath()) {
+                @Override
+                public void append(PlayerRegistry batch) throws IOException {
+                    if (failing[0]) {
+                        throw new IOException("The disk is full");
+                    }
+                    super.append(batch);
+                }
+            };
+            ProfileWriter writer = new ProfileWriter(store, log, 60_000, 1024,
+                    1 << 20, 60_000);
+            writer.record("ann", 2, 1, 0);
+            writer.flush();
+            // The log fails before anything is written, so the batch is
+            // saved to the store instead.
+            failing[0] = true;
+            writer.record("ann", 1, 0, 0);
+            writer.flush();
+            assertEquals(1, store.load("ann").getWins());
+
+            // The first batch is compacted from the log exactly once.
+            failing[0] = false;
+            writer.close();
+            assertEquals(3, store.load("ann").getWins());
+            assertEquals(1, store.load("ann").getLosses());
+            assertEquals(0, log.size());
+            log.close();
+            store.close();
+        } finally {
+            new File(base.getPath() + ".dat").delete();
+            new File(base.getPath() + ".idx").delete();
+            new File(base.getPath() + ".wal").delete();
+            base.delete();
+        }
+    }
+
+    @Test
+    public void testProfileLogRecovery() throws IOException {
+        File base = File.createTempFile("profiles", "");
+        try {
+            ProfileStore store = new ProfileStore(base.getPath());
+            ProfileLog log = new ProfileLog(base.getPath());
+            PlayerRegistry batch = new PlayerRegistry();
+            batch.add("ann", 2, 1, 0);
+            batch.add("bob", 0, 3, 1);
+            log.append(batch);
+            batch = new PlayerRegistry();
+            batch.add("ann", 1, 0, 0);
+            log.append(batch);
+
+            // A compaction that crashed part way had already added ann's
+            // changes from this generation of the log.
+            assertTrue(store.apply("ann", 3, 1, 0, 1));
+            // A record cut short by a crash is ignored.
+            try (FileOutputStream out = new FileOutputStream(
+                    base.getPath() + ".wal", true)) {
+                out.write(new byte[] { 0, 3, 'e', 'v' });
+            }
+            assertEquals(1, log.compact(store));
+            assertEquals(3, store.load("ann").getWins());
+            assertEquals(3, store.load("bob").getLosses());
+            assertEquals(0, log.size());
+
+            // The next generation adds to ann again.
+            batch = new PlayerRegistry();
+            batch.add("ann", 1, 0, 0);
+            log.append(batch);
+            log.close();
+            ProfileLog reopened = new ProfileLog(base.getPath());
+            assertEquals(1, reopened.compact(store));
+            assertEquals(4, store.load("ann").getWins());
+            reopened.close();
+            store.close();
+        } finally {
+            new File(base.getPath() + ".dat").delete();
+            new File(base.getPath() + ".idx").delete();
+            new File(base.getPath() + ".wal").delete();
+            base.delete();
+        }
+    }
+
+    @Test
+    public void testProfileLogInterruptedCompaction() throws IOException {
+        File base = File.createTempFile("profiles", "");
+        String wal = base.getPath() + ".wal";
+        try {
+            ProfileStore store = new ProfileStore(base.getPath());
+            ProfileLog log = new ProfileLog(base.getPath());
+            PlayerRegistry batch = new PlayerRegistry();
+            batch.add("ann", 2, 0, 0);
+            batch.add("bob", 1, 0, 0);
+            log.append(batch);
+
+            // A compaction crashed after marking the log as being compacted
+            // and adding ann's changes from generation 1.
+            try (RandomAccessFile file = new RandomAccessFile(wal, "rw")) {
+                file.seek(12);
+                file.writeInt(1);
+            }
+            assertTrue(store.apply("ann", 2, 0, 0, 1));
+
+            // Ann's next game cannot join generation 1, where it would be
+            // skipped, so the writer saves it to the store instead.
+            ProfileWriter writer = new ProfileWriter(store, log, 60_000, 1024,
+                    1 << 20, 60_000);
+            writer.record("ann", 1, 0, 0);
+            writer.flush();
+            assertEquals(3, store.load("ann").getWins());
+
+            // Running the compaction again finishes it and opens the log.
+            assertEquals(1, log.compact(store));
+            assertEquals(3, store.load("ann").getWins());
+            assertEquals(1, store.load("bob").getWins());
+            writer.record("ann", 1, 0, 0);
+            writer.flush();
+            assertEquals(1, log.compact(store));
+            assertEquals(4, store.load("ann").getWins());
+
+            // Skip to the last generation. Bob's record still holds
+            // generation 1, which must be cleared before it comes round.
+            try (RandomAccessFile file = new RandomAccessFile(wal, "rw")) {
+                file.seek(8);
+                file.writeInt(0x7FFF);
+            }
+            writer.record("ann", 1, 0, 0);
+            writer.flush();
+            assertEquals(1, log.compact(store));
+            writer.record("bob", 1, 0, 0);
+            writer.flush();
+            assertEquals(1, log.compact(store));
+            assertEquals(5, store.load("ann").getWins());
+            assertEquals(2, store.load("bob").getWins());
+            writer.close();
+            log.close();
+            store.close();
+        } finally {
+            new File(base.getPath() + ".dat").delete();
+            new File(base.getPath() + ".idx").delete();
+            new File(wal).delete();
+            base.delete();
+        }
+    }
+
+    @Test
+    public void testReshardProfiles() throws IOException {
+        File dir = Files.createTempDirectory("shards").toFile();
+        String base = new File(dir, "profiles").getPath();
+        try {
+            ProfileStore single = new ProfileStore(base);
+            for (int i = 0; i < 2000; i++) {
+                single.save(new Player("player" + i, i, 1, 0));
+            }
+            single.close();
+            ProfileLog log = new ProfileLog(base);
+            PlayerRegistry batch = new PlayerRegistry();
+            batch.add("player5", 10, 0, 0);
+            log.append(batch);
+            log.close();
+
+            ShardedProfileStore.reshard(base, 4);
+            assertFalse(new File(base + ".dat").exists());
+            ShardedProfileStore.reshard(base, 3);
+            assertFalse(new File(base + "-0of4.dat").exists());
+
+            ProfileStorage storage = ProfileStorage.open(base);
+            assertTrue(storage instanceof ShardedProfileStore);
+            assertEquals(2000, storage.size());
+            assertEquals(15, storage.load("player5").getWins());
+            assertEquals(1999, storage.load("player1999").getWins());
+            storage.add("player2000", 1, 0, 0);
+            assertTrue(storage.contains("player2000"));
+            int[] counted = new int[1];
+            storage.forEach(player -> counted[0]++);
+            assertEquals(2001, counted[0]);
+            storage.close();
+        } finally {
+            for (File file : dir.listFiles()) {
+                file.delete();
+            }
+            dir.delete();
+        }
+    }
+
+    @Test
+    public void testProfileFileRoundTrip() throws IOException {
+        File file = File.createTempFile("players", ".dat");
+        try {
+            ArrayList<Player> players = new ArrayList<>();
+            for (int i = 0; i < 3000; i++) {
+                players.add(new Player("player" + i, i, 2 * i, i % 7));
+            }
+            players.add(new Player("\u00e9l\u00e8ve", 3, 1, 1));
+            FrontEnd.writePlayers(file.getPath(), players);
+            assertEquals(ProfileCodec.HEADER_SIZE
+                    + 3001L * ProfileCodec.RECORD_SIZE, file.length());
+
+            ArrayList<Player> read = FrontEnd.readPlayers(file.getPath());
+            assertEquals(3001, read.size());
+            assertEquals("player2999", read.get(2999).getName());
+            assertEquals(5998, read.get(2999).getLosses());
+            assertEquals(3, read.get(2999).getBlackjacks());
+            // Derived stats are worked out again when a profile is read.
+            assertEquals(players.get(3000).getName(), read.get(3000).getName());
+            assertEquals(3.0, read.get(3000).getWinLoss(), 0.0);
+        } finally {
+            file.delete();
+        }
+    }
+
+    @Test
+    public void testReadLegacyPlayerFile() throws IOException {
+        File file = File.createTempFile("players", ".txt");
+        try {
+            ArrayList<Player> players = new ArrayList<>();
+            players.add(new Player("old", 4, 2, 1));
+            try (ObjectOutputStream out = new ObjectOutputStream(
+                    new FileOutputStream(file))) {
+                out.writeObject(players);
+            }
+            ArrayList<Player> read = FrontEnd.readPlayers(file.getPath());
+            assertEquals(1, read.size());
+            assertEquals(4, read.get(0).getWins());
+        } finally {
+            file.delete();
+        }
+    }
+
+    @Test
+    public void testFindPlayerInFile() throws IOException {
+        File file = File.createTempFile("players", ".dat");
+        try {
+            ArrayList<Player> players = new ArrayList<>();
+            for (int i = 0; i < 5000; i++) {
+                players.add(new Player("player" + i, i, 1, 0));
+            }
+            players.add(new Player("player42", 420, 1, 0));
+            FrontEnd.writePlayers(file.getPath(), players);
+
+            String path = file.getPath();
+            assertEquals(4321,
+                    FrontEnd.findPlayer(path, "player4321").getWins());
+            // The last copy of a name saved twice is found.
+            assertEquals(420,
+                    FrontEnd.findPlayer(file.getPath(), "player42").getWins());
+            assertNull(FrontEnd.findPlayer(file.getPath(), "player5000"));
+            assertNull(FrontEnd.findPlayer(file.getPath() + ".missing", "x"));
+        } finally {
+            file.delete();
+        }
+    }
+
+    @Test
+    public void testLeaderboard() {
+        Leaderboard leaderboard = new Leaderboard();
+        for (int i = 0; i < 100; i++) {
+            // Player i has won i of their 100 games.
+            leaderboard.put("player" + i, i, 100 - i);
+        }
+        leaderboard.put("unbeaten", 3, 0);
+        leaderboard.put("new", 0, 0);
+        assertEquals(101, leaderboard.size());
+        assertEquals(50.0 * 100 / 101, leaderboard.percentile(50, 50), 1e-9);
+        assertEquals(0.0, leaderboard.percentile(0, 5), 0.0);
+
+        ArrayList<Player> top = leaderboard.top(3);
+        assertEquals("unbeaten", top.get(0).getName());
+        assertEquals("player99", top.get(1).getName());
+        assertEquals("player98", top.get(2).getName());
+
+        // Wins and losses move a player, and are seen straight away.
+        Player player = new Player("player0", 0, 100, 0);
+        player.setLeaderboard(leaderboard);
+        for (int i = 0; i < 9900; i++) {
+            player.addWin();
+        }
+        // Tied with player99 on win fraction, ahead on games played.
+        assertEquals(101, leaderboard.size());
+        assertEquals("player0", leaderboard.top(3).get(1).getName());
+        assertEquals(100.0 * 98 / 101, leaderboard.percentile(9900, 100),
+                1e-9);
+    }
+
+    @Test
+    public void testConcurrentScoreboard() throws InterruptedException {
+        ConcurrentScoreboard house = new ConcurrentScoreboard("House");
+        Thread[] threads = new Thread[8];
+        boolean[] torn = new boolean[1];
+        for (int t = 0; t < threads.length; t++) {
+            threads[t] = new Thread(() -> {
+                for (int i = 0; i < 100000; i++) {
+                    // A win with a blackjack, recorded as one update.
+                    house.record(1, 0, 1);
+                    house.addLoss();
+                    if (i % 1000 == 0) {
+                        ConcurrentScoreboard.Snapshot totals = house
+                                .snapshot();
+                        if (totals.getWins() != totals.getBlackjacks()) {
+                            torn[0] = true;
+                        }
+                    }
+                }
+            });
+            threads[t].start();
+        }
+        for (Thread thread : threads) {
+            thread.join();
+        }
+        assertFalse(torn[0]);
+        ConcurrentScoreboard.Snapshot totals = house.snapshot();
+        assertEquals(800000, totals.getWins());
+        assertEquals(800000, totals.getLosses());
+        assertEquals(800000, totals.getBlackjacks());
+        assertEquals(1600000, house.getGamesPlayed());
+
+        // A dealer's results are also added to the shared scoreboard.
+        Dealer dealer = new Dealer("Dealer", 0, 0, 0);
+        dealer.setSharedScoreboard(house);
+        dealer.addBlackjackWin();
+        assertEquals(1, dealer.getWins());
+        assertEquals(1, dealer.getBlackjacks());
+        assertEquals(800001, house.snapshot().getWins());
+        assertEquals(800001, house.snapshot().getBlackjacks());
+    }
+
+    //
+    // END PROFILE TESTS
+    //
 }
@@ -0,0 +1,201 @@
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.TreeSet;
+
+/**
+ * The leaderboard ranks every player who has played at least one game by the
+ * fraction of their games that they won, which orders players the same way
+ * as their W/L ratio but stays finite for players who have never lost.
+ *
+ * <p>
+ * Players are kept in a sorted set for top-K queries, and counted in a
+ * Fenwick tree (a binary indexed tree) over win fraction buckets of 0.1%
+ * each, which answers "what percentile am I" by summing the buckets below a
+ * player. A player's entry is replaced whenever their wins or losses change,
+ * so every update and query takes logarithmic time and nothing is ever
+ * sorted or scanned again.
+ *
+ * <p>
+ * The leaderboard is per-process and approximate. It lives only in memory,
+ * is built by scanning every saved profile once when a session starts, and
+ * after that only sees the updates made by this process. Games saved by
+ * other sessions running at the same time are not counted until the next
+ * session builds its own leaderboard, so percentiles and the top players
+ * can be slightly out of date while several sessions are playing.
+ *
+ * @author gunnarvonbergen
+ *
+ */
+public class Leaderboard {
+
+    /**
+     * The number of buckets win fractions are counted in. A player with no
+     * losses is in the last bucket.
+     */
+    public static final int BUCKETS = 1001;
+
+    /**
+     * One ranked player. Smaller than a Player object, which also holds a
+     * hand.
+     */
+    private static final class Entry {
+        final String name;
+
+        final int wins;
+
+        final long games;
+
+        Entry(String name, int wins, int losses) {
+            this.name = name;
+            this.wins = wins;
+            this.games = wins + (long) losses;
+        }
+    }
+
+    // Best win fraction first, then the most games, then by name.
+    private static final Comparator<Entry> ORDER = (a, b) -> {
+        int compare = Long.compare(b.wins * a.games, a.wins * b.games);
+        if (compare == 0) {
+            compare = Long.compare(b.games, a.games);
+        }
+        if (compare == 0) {
+            compare = a.name.compareTo(b.name);
+        }
+        return compare;
+    };
+
+    private final HashMap<String, Entry> players = new HashMap<>();
+
+    private final TreeSet<Entry> ranking = new TreeSet<>(ORDER);
+
+    // Fenwick tree of the number of players in each bucket. Index i holds
+    // the count for a range of buckets ending at bucket i - 1.
+    private final int[] tree = new int[BUCKETS + 1];
+
+    /**
+     * Builds a leaderboard holding every saved profile. This reads the whole
+     * store, so it is done once per session, and the result is a snapshot
+     * that later changes by other processes do not reach.
+     *
+     * @param storage the saved profiles.
+     * @return the new leaderboard.
+     */
+    public static Leaderboard build(ProfileStorage storage) {
+        Leaderboard leaderboard = new Leaderboard();
+        storage.forEach(player -> leaderboard.put(player.getName(),
+                player.getWins(), player.getLosses()));
+        return leaderboard;
+    }
+
+    /**
+     * Adds a player or replaces the wins and losses of a player already on
+     * the leaderboard. Players without any games are taken off it.
+     *
+     * @param name   the name of the player.
+     * @param wins   the player's wins.
+     * @param losses the player's losses.
+     */
+    public synchronized void put(String name, int wins, int losses) {
+        Entry old = players.remove(name);
+        if (old != null) {
+            ranking.remove(old);
+            count(bucket(old.wins, old.games), -1);
+        }
+        if (wins + (long) losses > 0) {
+            Entry entry = new Entry(name, wins, losses);
+            players.put(name, entry);
+            ranking.add(entry);
+            count(bucket(entry.wins, entry.games), 1);
+        }
+    }
+
+    /**
+     * Returns the number of ranked players.
+     *
+     * @return the player count as an integer.
+     */
+    public synchronized int size() {
+        return players.size();
+    }
+
+    /**
+     * Returns the percentage of ranked players with a lower win fraction than
+     * the given stats, to the nearest 0.1% of win fraction.
+     *
+     * @param wins   the wins being compared.
+     * @param losses the losses being compared.
+     * @return a percentile from 0 to 100, or 0 if nobody is ranked.
+     */
+    public synchronized double percentile(int wins, int losses) {
+        if (players.isEmpty()) {
+            return 0;
+        }
+        int bucket = bucket(wins, wins + (long) losses);
+        return 100.0 * countBelow(bucket) / players.size();
+    }
+
+    /**
+     * Returns the best players, best first.
+     *
+     * @param count how many players to return.
+     * @return an array list of new player objects holding the wins and losses
+     *         of up to count players.
+     */
+    public synchronized ArrayList<Player> top(int count) {
+        ArrayList<Player> top = new ArrayList<>(Math.min(count,
+                players.size()));
+        for (Entry entry : ranking) {
+            if (top.size() == count) {
+                break;
+            }
+            top.add(new Player(entry.name, entry.wins,
+                    (int) (entry.games - entry.wins), 0));
+        }
+        return top;
+    }
+
+    /**
+     * Prints the best players as a table.
+     *
+     * @param count how many players to show.
+     */
+    public void displayTop(int count) {
+        ArrayList<Player> top = top(count);
+        System.out.println("+-------------------------------+");
+        System.out.println("| Leaderboard                   |");
+        System.out.println("+---------------------+---------+");
+        for (int i = 0; i < top.size(); i++) {
+            Player player = top.get(i);
+            double winRate = 100.0 * player.getWins()
+                    / player.getGamesPlayed();
+            System.out.format("| %2d. %-15s | %6.1f%% |\n", i + 1,
+                    player.getName(), winRate);
+        }
+        System.out.println("+---------------------+---------+");
+    }
+
+    private static int bucket(int wins, long games) {
+        if (games == 0) {
+            return 0;
+        }
+        return (int) (wins * (long) (BUCKETS - 1) / games);
+    }
+
+    private void count(int bucket, int change) {
+        for (int i = bucket + 1; i <= BUCKETS; i += i & -i) {
+            tree[i] += change;
+        }
+    }
+
+    /**
+     * Sums the players in every bucket before the given one.
+     */
+    private int countBelow(int bucket) {
+        int sum = 0;
+        for (int i = bucket; i > 0; i -= i & -i) {
+            sum += tree[i];
+        }
+        return sum;
+    }
+}
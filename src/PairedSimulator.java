@@ -0,0 +1,193 @@
+/**
+ * A paired simulator compares two strategies by dealing both of them every
+ * hand from the same place in the same shoe. The difference between the
+ * strategies is then measured without the luck of the deal, which both hands
+ * share, so it needs far fewer hands to reach a given precision than playing
+ * each strategy on hands of its own. Each pair is one sample of the
+ * difference, and its running stats give the margin of error as hands are
+ * played.
+ *
+ * <p>
+ * The second hand of each pair is dealt from a copy of the first hand's shoe,
+ * taken just before the first hand is played, and only the first hand moves
+ * the shoe along.
+ *
+ * @author gunnarvonbergen
+ *
+ */
+public class PairedSimulator {
+
+    private final Shoe shoe;
+
+    private final Shoe copy;
+
+    private final Simulator first;
+
+    private final Simulator second;
+
+    private final SimulationResult firstResult = new SimulationResult();
+
+    private final SimulationResult secondResult = new SimulationResult();
+
+    private final RunningStats pairs = new RunningStats();
+
+    /**
+     * Creates a simulator that deals two strategies the same cards and
+     * measures how much higher the house edge is against the second.
+     *
+     * @param seed   the seed used to shuffle the shoe.
+     * @param first  the strategy being compared against.
+     * @param second the strategy being measured.
+     * @param rules  the rules of the simulated table.
+     */
+    public PairedSimulator(long seed, Strategy first, Strategy second,
+            TableRules rules) {
+        this.shoe = new Shoe(rules, seed);
+        this.copy = shoe.clone();
+        this.first = new Simulator(shoe, first, rules);
+        this.second = new Simulator(copy, second, rules);
+    }
+
+    /**
+     * Plays one pair of hands and records both outcomes.
+     */
+    public void playPair() {
+        shoe.shuffleIfNeeded();
+        copy.copyFrom(shoe);
+        double firstNet = first.playHand(firstResult);
+        double secondNet = second.playHand(secondResult);
+        pairs.add(secondNet - firstNet);
+    }
+
+    /**
+     * Plays the given number of pairs.
+     *
+     * @param count the number of pairs to play.
+     */
+    public void run(long count) {
+        for (long i = 0; i < count; i++) {
+            playPair();
+        }
+    }
+
+    /**
+     * Plays pairs until the difference is known to within the given margin,
+     * checking every Simulator.CHECK_INTERVAL pairs.
+     *
+     * @param margin   the largest acceptable half width of the 95% confidence
+     *                 interval around the difference.
+     * @param maxPairs the most pairs played if the margin is never reached.
+     * @return the number of pairs played by this call.
+     */
+    public long runUntil(double margin, long maxPairs) {
+        long played = 0;
+        while (played < maxPairs) {
+            long batch = Math.min(Simulator.CHECK_INTERVAL, maxPairs - played);
+            run(batch);
+            played += batch;
+            if (pairs.getCount() > 1 && getMargin() <= margin) {
+                break;
+            }
+        }
+        return played;
+    }
+
+    /**
+     * Returns how much higher the house edge is against the second strategy
+     * than the first.
+     *
+     * @return the difference as a fraction of each bet.
+     */
+    public double getDifference() {
+        return pairs.getCount() == 0 ? 0 : -pairs.getMean();
+    }
+
+    /**
+     * Returns the half width of the 95% confidence interval around the
+     * difference.
+     *
+     * @return the margin of error.
+     */
+    public double getMargin() {
+        return pairs.getMargin();
+    }
+
+    /**
+     * Returns how many times as many hands two independent simulations would
+     * need to measure the difference to the same margin as these pairs.
+     *
+     * @return the ratio of hands needed, or 0 before two pairs are played.
+     */
+    public double getEfficiency() {
+        double pairVariance = pairs.getVariance();
+        if (pairVariance == 0) {
+            return 0;
+        }
+        double firstVariance = square(firstResult.getStandardDeviation());
+        double secondVariance = square(secondResult.getStandardDeviation());
+        // Independent hands would add their variances in the difference.
+        return (firstVariance + secondVariance) / pairVariance;
+    }
+
+    private static double square(double value) {
+        return value * value;
+    }
+
+    /**
+     * Returns the running stats of the pairs played so far.
+     *
+     * @return the stats of the difference between each pair's hands.
+     */
+    public RunningStats getPairs() {
+        return pairs;
+    }
+
+    /**
+     * Returns the outcomes of the first hand of every pair.
+     *
+     * @return the first hands' result.
+     */
+    public SimulationResult getFirstResult() {
+        return firstResult;
+    }
+
+    /**
+     * Returns the outcomes of the second hand of every pair.
+     *
+     * @return the second hands' result.
+     */
+    public SimulationResult getSecondResult() {
+        return secondResult;
+    }
+
+    /**
+     * Measures the house edge of a strategy until it reaches a margin, then
+     * its difference from standing on 17 to the same margin with paired
+     * hands. Arguments are the margin, the seed and the strategy, in that
+     * order.
+     *
+     * @param args optional margin, seed and strategy.
+     */
+    public static void main(String[] args) {
+        double margin = args.length > 0 ? Double.parseDouble(args[0]) : 0.005;
+        long seed = args.length > 1 ? Long.parseLong(args[1]) : 21;
+        Strategy strategy = Simulator
+                .parseStrategy(args.length > 2 ? args[2] : "basic");
+        TableRules rules = TableRules.DEFAULT;
+        long maxHands = 100_000_000;
+
+        SimulationResult plain = new Simulator(seed, strategy, rules)
+                .runUntil(margin, maxHands);
+        System.out.printf("House edge: %.3f%% +/-%.3f%% after %d hands\n",
+                plain.getHouseEdge() * 100, plain.getHouseEdgeMargin() * 100,
+                plain.getHands());
+
+        PairedSimulator paired = new PairedSimulator(seed,
+                new ThresholdStrategy(17), strategy, rules);
+        long pairs = paired.runUntil(margin, maxHands / 2);
+        System.out.printf("Difference from standing on 17: %.3f%% +/-%.3f%% "
+                + "after %d hands (%.1fx fewer than unpaired)\n",
+                paired.getDifference() * 100, paired.getMargin() * 100,
+                2 * pairs, paired.getEfficiency());
+    }
+}
@@ -0,0 +1,169 @@
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RecursiveTask;
+
+/**
+ * The parallel simulator splits a budget of hands across every core using a
+ * fork/join pool. The budget is cut into fixed size chunks and each chunk is
+ * played by its own Simulator, so no deck, player or random generator is ever
+ * shared between threads. Every chunk's seed is derived from the master seed
+ * and the chunk's index, which means the merged result only depends on the
+ * master seed and never on how many threads ran the chunks.
+ *
+ * @author gunnarvonbergen
+ *
+ */
+public class ParallelSimulator {
+
+    // Hands played by each chunk. Must not depend on the thread count.
+    public static final int CHUNK_SIZE = 1 << 16;
+
+    private final ForkJoinPool pool;
+
+    private final Strategy strategy;
+
+    private final TableRules rules;
+
+    /**
+     * Creates a parallel simulator that uses every available core.
+     *
+     * @param strategy the strategy shared by every worker's player.
+     */
+    public ParallelSimulator(Strategy strategy) {
+        this(Runtime.getRuntime().availableProcessors(), strategy);
+    }
+
+    /**
+     * Creates a parallel simulator with a fixed number of worker threads.
+     *
+     * @param parallelism    the number of worker threads to use.
+     * @param standThreshold the hand total the simulated player stands on.
+     */
+    public ParallelSimulator(int parallelism, int standThreshold) {
+        this(parallelism, new ThresholdStrategy(standThreshold));
+    }
+
+    /**
+     * Creates a parallel simulator with a fixed number of worker threads. The
+     * strategy is shared between workers, so it must not keep any state.
+     *
+     * @param parallelism the number of worker threads to use.
+     * @param strategy    the strategy shared by every worker's player.
+     */
+    public ParallelSimulator(int parallelism, Strategy strategy) {
+        this(parallelism, strategy, TableRules.DEFAULT);
+    }
+
+    /**
+     * Creates a parallel simulator with a fixed number of worker threads
+     * that plays by the given table rules.
+     *
+     * @param parallelism the number of worker threads to use.
+     * @param strategy    the strategy shared by every worker's player.
+     * @param rules       the rules of the simulated table.
+     */
+    public ParallelSimulator(int parallelism, Strategy strategy,
+            TableRules rules) {
+        this.pool = new ForkJoinPool(parallelism);
+        this.strategy = strategy;
+        this.rules = rules;
+    }
+
+    /**
+     * Plays the given number of hands across the pool and merges every
+     * worker's counts into one result.
+     *
+     * @param hands      the total number of hands to play.
+     * @param masterSeed the seed every chunk's seed is derived from.
+     * @return the merged result of all hands.
+     */
+    public SimulationResult run(long hands, long masterSeed) {
+        long chunks = (hands + CHUNK_SIZE - 1) / CHUNK_SIZE;
+        return pool.invoke(new ChunkTask(hands, masterSeed, 0, chunks));
+    }
+
+    /**
+     * Shuts down the worker threads once the simulator is no longer needed.
+     */
+    public void shutdown() {
+        pool.shutdown();
+    }
+
+    /**
+     * Runs a simulation from the command line. Arguments are the number of
+     * hands, the master seed, the number of threads and the strategy, in that
+     * order.
+     *
+     * @param args optional hand count, master seed, thread count and strategy.
+     */
+    public static void main(String[] args) {
+        long hands = args.length > 0 ? Long.parseLong(args[0]) : 100_000_000;
+        long seed = args.length > 1 ? Long.parseLong(args[1]) : 21;
+        int threads = args.length > 2 ? Integer.parseInt(args[2])
+                : Runtime.getRuntime().availableProcessors();
+        Strategy strategy = Simulator
+                .parseStrategy(args.length > 3 ? args[3] : "17");
+
+        ParallelSimulator simulator = new ParallelSimulator(threads, strategy);
+        long start = System.nanoTime();
+        SimulationResult result = simulator.run(hands, seed);
+        double seconds = (System.nanoTime() - start) / 1e9;
+        simulator.shutdown();
+
+        result.displayResult();
+        System.out.printf("Played %d hands on %d threads in %.2fs (%.0f hands/s)\n",
+                hands, threads, seconds, hands / seconds);
+    }
+
+    /**
+     * Plays a range of chunks, splitting the range in half until only one
+     * chunk is left.
+     */
+    private class ChunkTask extends RecursiveTask<SimulationResult> {
+
+        private static final long serialVersionUID = 1L;
+
+        private final long hands;
+
+        private final long masterSeed;
+
+        private final long firstChunk;
+
+        private final long endChunk;
+
+        ChunkTask(long hands, long masterSeed, long firstChunk,
+                long endChunk) {
+            this.hands = hands;
+            this.masterSeed = masterSeed;
+            this.firstChunk = firstChunk;
+            this.endChunk = endChunk;
+        }
+
+        @Override
+        protected SimulationResult compute() {
+            if (endChunk - firstChunk <= 1) {
+                return playChunk(firstChunk);
+            }
+            long middle = (firstChunk + endChunk) >>> 1;
+            ChunkTask left = new ChunkTask(hands, masterSeed, firstChunk,
+                    middle);
+            ChunkTask right = new ChunkTask(hands, masterSeed, middle,
+                    endChunk);
+            left.fork();
+            SimulationResult result = right.compute();
+            result.merge(left.join());
+            return result;
+        }
+
+        private SimulationResult playChunk(long chunk) {
+            long start = chunk * CHUNK_SIZE;
+            if (start >= hands) {
+                return new SimulationResult();
+            }
+            long count = Math.min(CHUNK_SIZE, hands - start);
+            Simulator simulator = new Simulator(
+                    ShuffleRandom.streamSeed(masterSeed, chunk), strategy,
+                    rules);
+            return simulator.run(count);
+        }
+    }
+}
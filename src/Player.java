@@ -1,6 +1,7 @@
+import java.io.IOException;
+import java.io.ObjectInputStream;
 import java.io.Serializable;
 import java.util.ArrayList;
-import java.util.Scanner;
 
 /**
  * A player object is the core of a blackjack game. Responsible for holding the
@@ -20,6 +21,19 @@ public class Player implements Scoreboard, Cloneable, Serializable {
 
     private boolean isPush = false;
 
+    // Told what happens in each hand. Null means the console renderer.
+    private transient GameListener listener;
+
+    // Decides whether to hit or stand. Null means the console is asked.
+    private transient Strategy strategy;
+
+    // Kept up to date with the player's wins and losses, if there is one.
+    private transient Leaderboard leaderboard;
+
+    // Also given every win, loss and blackjack, such as the house's totals
+    // across many tables.
+    private transient Scoreboard sharedScoreboard;
+
     private final String NAME;
 
     private int wins;
@@ -35,7 +49,8 @@ public class Player implements Scoreboard, Cloneable, Serializable {
 
     private double winLossRatio;
 
-    private ArrayList<Card> hand = new ArrayList<Card>();
+    // Always a Hand, which keeps the hand's value up to date as cards change.
+    private ArrayList<Card> hand = new Hand();
 
     /**
      * A player object hold important stats that track a player's data across
@@ -71,11 +86,8 @@ public class Player implements Scoreboard, Cloneable, Serializable {
         this.winLossRatio = other.winLossRatio;
         this.setPlayerRank();
 
-        // Creates a deep copy of the hand using the card object's clone method.
-        this.hand = new ArrayList<Card>();
-        for (Card card : other.hand) {
-            this.hand.add(card.clone());
-        }
+        // Cards are immutable, so the copied hand shares the same cards.
+        this.hand = new Hand(other.hand);
     }
 
     /**
@@ -96,6 +108,10 @@ public class Player implements Scoreboard, Cloneable, Serializable {
         System.out.format("| %-13s %-14s |\n", "Games Played:", gamesPlayed);
         System.out.println("+--------------+---------------+");
         System.out.format("| %-13s %-14s |\n", "Player Rank: ", playerRank);
+        if (leaderboard != null && gamesPlayed > 0) {
+            System.out.format("| %-13s %-14.1f |\n", "Percentile:",
+                    leaderboard.percentile(wins, losses));
+        }
         System.out.println("+------------------------------+");
     }
 
@@ -131,28 +147,30 @@ public class Player implements Scoreboard, Cloneable, Serializable {
      * @param dealer the dealer being played against.
      */
     public void playHand(Deck deck, Dealer dealer) {
-        System.out.println();
+        GameListener events = getGameListener();
+        events.handStarted(this, dealer);
         drawCard(deck);
 
         while (true) {
             drawCard(deck);
-            System.out.println();
 
             if (calculateHandValue() == 21) {
-                blackjackCheck(); // Prints blackjack! if hand size of 2.
-                addWin();
-                addBlackjack();
+                addBlackjackWin();
+                events.handEnded(this, dealer, hand.size() == 2
+                        ? GameListener.Outcome.PLAYER_BLACKJACK
+                        : GameListener.Outcome.PLAYER_TWENTY_ONE);
                 break;
             } else if (calculateHandValue() > 21) {
-                printBust();
                 addLoss();
                 dealer.addWin();
+                events.handEnded(this, dealer,
+                        GameListener.Outcome.PLAYER_BUST);
                 break;
             }
 
             callDealer(deck, dealer);
 
-            if (!decideToHit()) {
+            if (!decideToHit(dealer.getHand().get(0))) {
                 dealer.playHand(deck, this);
                 checkStand(dealer);
                 break;
@@ -189,10 +207,9 @@ public class Player implements Scoreboard, Cloneable, Serializable {
      * @param deck the deck object containing the current game's cards.
      */
     public void drawCard(Deck deck) {
-        hand.add(deck.draw());
-        System.out.println("Drew Card: ");
-        hand.get(hand.size() - 1).displayCard();
-
+        Card card = deck.draw();
+        hand.add(card);
+        getGameListener().cardDrawn(this, card);
     }
 
     /**
@@ -202,76 +219,147 @@ public class Player implements Scoreboard, Cloneable, Serializable {
      * @param dealer the dealer containing the hand to compare to.
      */
     public void checkStand(Dealer dealer) {
-        System.out.println(); // Creates a gap in console for readability.
-        for (int i = 1; i < dealer.getHand().size(); i++) {
-            System.out.println("The dealer drew a(n) "
-                    + dealer.getHand().get(i).toString());
-        }
+        GameListener events = getGameListener();
+        events.playerStood(this, dealer);
+        GameListener.Outcome outcome;
         if (calculateHandValue() > dealer.calculateHandValue()) {
-            System.out.println("Your hand is higher value! You Win!");
             addWin();
             dealer.addLoss();
+            outcome = GameListener.Outcome.PLAYER_HIGHER;
         } else if (!dealer.getBusted()
                 && (calculateHandValue() < dealer.calculateHandValue())) {
-            System.out
-                    .printf("The dealer's hand total of %d is higher value! Dealer Wins!\n",
-                            dealer.calculateHandValue());
             addLoss();
             dealer.addWin();
+            outcome = GameListener.Outcome.DEALER_HIGHER;
         } else if (dealer.getBusted()) {
-            System.out.println("Dealer busted! You Win!");
+            outcome = GameListener.Outcome.DEALER_BUST;
         } else {
-            System.out.println("Tie! It's a push!");
+            outcome = GameListener.Outcome.PUSH;
         }
+        events.handEnded(this, dealer, outcome);
     }
 
     /**
-     * Prompts the user to hit or stand and returns a boolean value representing
-     * their choice.
+     * Asks the player's strategy whether to hit or stand. Players without a
+     * strategy are prompted at the console.
      * 
+     * @param dealerUpCard the dealer's face up card.
      * @return a boolean value representing whether the player wants to hit or
      *         not.
      */
-    public boolean decideToHit() {
-        Scanner hitIn = new Scanner(System.in);
-        printHandQuery();
-        while (true) {
-            String userInput = hitIn.next();
-            if (userInput.equalsIgnoreCase("S")) {
-                return false;
-            } else if (userInput.equalsIgnoreCase("H")) {
-                return true;
-            } else {
-                System.out.println(
-                        "Enter a valid choice \"H\" to hit or \"S\" to stand.");
-            }
+    public boolean decideToHit(Card dealerUpCard) {
+        return getStrategy().decideToHit(this, dealerUpCard);
+    }
+
+    /**
+     * Returns the strategy used to make hit/stand decisions.
+     * 
+     * @return the player's strategy, the console strategy by default.
+     */
+    public Strategy getStrategy() {
+        if (strategy == null) {
+            return ConsoleStrategy.INSTANCE;
         }
+        return strategy;
     }
 
     /**
-     * Calculates the player's current hand value. Calls to manipulate ace
-     * values if the player would've busted.
+     * Sets the strategy used to make hit/stand decisions.
      * 
-     * @return the numerical value of a hand.
+     * @param strategy the strategy to consult, or null for the console.
      */
-    public int calculateHandValue() {
-        int pointValue = 0;
-        int numAces = 0;
-        for (Card card : hand) {
-            if (card.isAce()) {
-                pointValue += 11;
-                numAces++;
-            } else {
-                pointValue += card.getValue();
-            }
+    public void setStrategy(Strategy strategy) {
+        this.strategy = strategy;
+    }
+
+    /**
+     * Returns the listener told about every hand this player plays.
+     * 
+     * @return the player's listener, the console renderer by default.
+     */
+    public GameListener getGameListener() {
+        if (listener == null) {
+            return ConsoleRenderer.INSTANCE;
         }
-        for (int i = 0; i < numAces; i++) {
-            if (pointValue > 21) {
-                // Account for the fact that 11 was added earlier.
-                pointValue -= 10;
-            }
+        return listener;
+    }
+
+    /**
+     * Sets the listener told about every hand this player plays. Hands
+     * played without anyone watching use GameListener.NONE, so that nothing
+     * is formatted or printed.
+     * 
+     * @param listener the listener, or null for the console renderer.
+     */
+    public void setGameListener(GameListener listener) {
+        this.listener = listener;
+    }
+
+    /**
+     * Returns the leaderboard kept up to date with this player's stats.
+     * 
+     * @return the leaderboard, or null if there is none.
+     */
+    public Leaderboard getLeaderboard() {
+        return leaderboard;
+    }
+
+    /**
+     * Sets the leaderboard that is updated whenever the player wins or loses,
+     * and puts the player's current stats on it.
+     * 
+     * @param leaderboard the leaderboard, or null for none.
+     */
+    public void setLeaderboard(Leaderboard leaderboard) {
+        this.leaderboard = leaderboard;
+        updateLeaderboard();
+    }
+
+    /**
+     * Returns the scoreboard that this player's results are also added to.
+     * 
+     * @return the shared scoreboard, or null if there is none.
+     */
+    public Scoreboard getSharedScoreboard() {
+        return sharedScoreboard;
+    }
+
+    /**
+     * Sets a scoreboard that every later win, loss and blackjack is also
+     * added to. Many players and dealers can share one, as long as it is safe
+     * to use from several threads, like a ConcurrentScoreboard.
+     * 
+     * @param sharedScoreboard the scoreboard, or null for none.
+     */
+    public void setSharedScoreboard(Scoreboard sharedScoreboard) {
+        this.sharedScoreboard = sharedScoreboard;
+    }
+
+    private void updateLeaderboard() {
+        if (leaderboard != null) {
+            leaderboard.put(NAME, wins, losses);
         }
-        return pointValue;
+    }
+
+    /**
+     * Returns the player's current hand value. An ace counts as 11 unless the
+     * player would've busted. The value is kept up to date by the hand as
+     * cards are drawn, so this does not loop through the cards.
+     * 
+     * @return the numerical value of a hand.
+     */
+    public int calculateHandValue() {
+        return ((Hand) hand).getValue();
+    }
+
+    /**
+     * Checks whether the current hand is "soft", meaning an ace is still being
+     * counted as 11 without busting the hand.
+     * 
+     * @return true if the hand value includes an ace counted as 11.
+     */
+    public boolean isSoft() {
+        return ((Hand) hand).isSoft();
     }
 
     /**
@@ -320,6 +408,10 @@ public class Player implements Scoreboard, Cloneable, Serializable {
     @Override
     public void addWin() {
         wins++;
+        updateLeaderboard();
+        if (sharedScoreboard != null) {
+            sharedScoreboard.addWin();
+        }
     }
 
     /**
@@ -328,6 +420,10 @@ public class Player implements Scoreboard, Cloneable, Serializable {
     @Override
     public void addLoss() {
         losses++;
+        updateLeaderboard();
+        if (sharedScoreboard != null) {
+            sharedScoreboard.addLoss();
+        }
     }
 
     /**
@@ -343,8 +439,27 @@ public class Player implements Scoreboard, Cloneable, Serializable {
     /**
      * Adds a blackjack to the player's stats.
      */
+    @Override
     public void addBlackjack() {
         blackjacks++;
+        if (sharedScoreboard != null) {
+            sharedScoreboard.addBlackjack();
+        }
+    }
+
+    /**
+     * Adds a win and its blackjack to the player's stats. The shared
+     * scoreboard gets them as one change, so its snapshots never show one
+     * without the other.
+     */
+    @Override
+    public void addBlackjackWin() {
+        wins++;
+        blackjacks++;
+        updateLeaderboard();
+        if (sharedScoreboard != null) {
+            sharedScoreboard.addBlackjackWin();
+        }
     }
 
     /**
@@ -435,26 +550,21 @@ public class Player implements Scoreboard, Cloneable, Serializable {
     }
 
     /**
-     * Checks if the player has achieved a legitimate blackjack (not just 21
-     * points).
+     * Restores a saved player. Players saved before hands kept their own
+     * totals have a plain array list, which is converted to a Hand.
+     * 
+     * @param in the stream the player is read from.
+     * @throws IOException            if the stream cannot be read.
+     * @throws ClassNotFoundException if a saved class cannot be found.
      */
-    public void blackjackCheck() {
-        if (getHand().size() == 2) {
-            System.out.println("Blackjack! You Win!");
-        } else {
-            System.out.println("21! You Win!");
+    private void readObject(ObjectInputStream in)
+            throws IOException, ClassNotFoundException {
+        in.defaultReadObject();
+        if (!(hand instanceof Hand)) {
+            hand = new Hand(hand);
         }
     }
 
-    /**
-     * Prints a standard message that informs the user of their hand value and
-     * the fact that they busted.
-     */
-    public void printBust() {
-        System.out.printf("Busted! Your hand value was %d. You Lose!\n",
-                calculateHandValue());
-    }
-
     /**
      * Used to format print statements for players. Used only for printing the
      * players name and rank.
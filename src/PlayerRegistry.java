@@ -0,0 +1,176 @@
+import java.util.ArrayList;
+import java.util.function.Consumer;
+
+/**
+ * The player registry keeps player stats in memory, keyed by name, so that a
+ * profile can be found, added or updated in constant time no matter how many
+ * profiles there are. Rather than holding a full Player object (with its hand
+ * and derived fields) for every profile, the registry stores each profile as
+ * a name plus three integers in parallel arrays, using an open addressing
+ * hash table. Player objects are only created when one is asked for.
+ *
+ * @author gunnarvonbergen
+ *
+ */
+public class PlayerRegistry {
+
+    private static final int INITIAL_SLOTS = 16;
+
+    private String[] names = new String[INITIAL_SLOTS];
+
+    private int[] wins = new int[INITIAL_SLOTS];
+
+    private int[] losses = new int[INITIAL_SLOTS];
+
+    private int[] blackjacks = new int[INITIAL_SLOTS];
+
+    private int size;
+
+    /**
+     * Returns a new player object with the stats stored for a name.
+     *
+     * @param name the name of the player.
+     * @return the player, or null if no player with that name is registered.
+     */
+    public synchronized Player get(String name) {
+        int slot = find(name);
+        if (names[slot] == null) {
+            return null;
+        }
+        return new Player(names[slot], wins[slot], losses[slot],
+                blackjacks[slot]);
+    }
+
+    /**
+     * Checks whether a player with the given name is registered.
+     *
+     * @param name the name of the player.
+     * @return true if the player is registered.
+     */
+    public synchronized boolean contains(String name) {
+        return names[find(name)] != null;
+    }
+
+    /**
+     * Registers a player or replaces the stats of the registered player with
+     * the same name.
+     *
+     * @param player the player whose stats are stored.
+     */
+    public synchronized void put(Player player) {
+        int slot = slotFor(player.getName());
+        wins[slot] = player.getWins();
+        losses[slot] = player.getLosses();
+        blackjacks[slot] = player.getBlackjacks();
+    }
+
+    /**
+     * Adds to the stats of a registered player, registering the player with
+     * empty stats first if needed.
+     *
+     * @param name       the name of the player.
+     * @param wins       the number of wins to add.
+     * @param losses     the number of losses to add.
+     * @param blackjacks the number of blackjacks to add.
+     */
+    public synchronized void add(String name, int wins, int losses,
+            int blackjacks) {
+        int slot = slotFor(name);
+        this.wins[slot] += wins;
+        this.losses[slot] += losses;
+        this.blackjacks[slot] += blackjacks;
+    }
+
+    /**
+     * Returns the number of registered players.
+     *
+     * @return the player count as an integer.
+     */
+    public synchronized int size() {
+        return size;
+    }
+
+    /**
+     * Passes a new player object for every registered player to the action.
+     *
+     * @param action the action performed on each player.
+     */
+    public synchronized void forEach(Consumer<Player> action) {
+        for (int slot = 0; slot < names.length; slot++) {
+            if (names[slot] != null) {
+                action.accept(new Player(names[slot], wins[slot],
+                        losses[slot], blackjacks[slot]));
+            }
+        }
+    }
+
+    /**
+     * Creates an array list holding a new player object for every registered
+     * player.
+     *
+     * @return an array list of players.
+     */
+    public synchronized ArrayList<Player> toList() {
+        ArrayList<Player> players = new ArrayList<>(size);
+        forEach(players::add);
+        return players;
+    }
+
+    /**
+     * Finds the slot of a name, adding the name with empty stats if it is not
+     * registered yet.
+     */
+    private int slotFor(String name) {
+        int slot = find(name);
+        if (names[slot] == null) {
+            if ((size + 1) * 2 > names.length) {
+                grow();
+                slot = find(name);
+            }
+            names[slot] = name;
+            size++;
+        }
+        return slot;
+    }
+
+    /**
+     * Finds the slot holding a name, or the empty slot where it belongs.
+     */
+    private int find(String name) {
+        int mask = names.length - 1;
+        int slot = hash(name) & mask;
+        while (names[slot] != null && !names[slot].equals(name)) {
+            slot = (slot + 1) & mask;
+        }
+        return slot;
+    }
+
+    private static int hash(String name) {
+        int h = name.hashCode() * 0x9E3779B1;
+        return h ^ (h >>> 16);
+    }
+
+    /**
+     * Doubles the number of slots and re-inserts every player.
+     */
+    private void grow() {
+        String[] oldNames = names;
+        int[] oldWins = wins;
+        int[] oldLosses = losses;
+        int[] oldBlackjacks = blackjacks;
+        int slots = oldNames.length * 2;
+        names = new String[slots];
+        wins = new int[slots];
+        losses = new int[slots];
+        blackjacks = new int[slots];
+        for (int old = 0; old < oldNames.length; old++) {
+            if (oldNames[old] != null) {
+                int slot = find(oldNames[old]);
+                names[slot] = oldNames[old];
+                wins[slot] = oldWins[old];
+                losses[slot] = oldLosses[old];
+                blackjacks[slot] = oldBlackjacks[old];
+            }
+        }
+    }
+}
@@ -0,0 +1,392 @@
+import java.io.EOFException;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.channels.ReadableByteChannel;
+import java.nio.channels.WritableByteChannel;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.function.Consumer;
+
+/**
+ * The profile codec defines the binary format used to save player profiles.
+ * Only the stats that cannot be worked out from others are saved: the name,
+ * wins, losses and blackjacks. Derived values such as the win/loss ratio and
+ * player rank are recalculated by the Player constructor when a profile is
+ * loaded, and hands are never saved.
+ *
+ * <p>
+ * Every profile is a fixed 64 byte record, so the record of any profile can
+ * be found by position:
+ *
+ * <pre>
+ * offset  size  field
+ *      0     2  name length in bytes
+ *      2    48  name, UTF-8, padded with zeros
+ *     50     2  generation of the last change log applied
+ *     52     4  wins
+ *     56     4  losses
+ *     60     4  blackjacks
+ * </pre>
+ *
+ * The log generation is only used by {@link ProfileStore}, so that replaying
+ * a {@link ProfileLog} never adds the same changes to a record twice. Files
+ * of profiles start with a 16 byte header holding a magic number, the
+ * format version and the number of records. Readers reject versions newer
+ * than their own, so the format can change without old code misreading new
+ * files. All values are big-endian and are read and written through NIO byte
+ * buffers at absolute positions.
+ *
+ * @author gunnarvonbergen
+ *
+ */
+public class ProfileCodec {
+
+    /**
+     * The current version of the profile format.
+     */
+    public static final int VERSION = 1;
+
+    /**
+     * Marks the start of a file of profiles ("S21P").
+     */
+    public static final int MAGIC = 0x53323150;
+
+    /**
+     * The size of a file header in bytes.
+     */
+    public static final int HEADER_SIZE = 16;
+
+    /**
+     * The size of one profile record in bytes.
+     */
+    public static final int RECORD_SIZE = 64;
+
+    /**
+     * The longest name, in UTF-8 bytes, that fits in a record.
+     */
+    public static final int MAX_NAME_BYTES = 48;
+
+    // Records are read and written this many at a time.
+    private static final int BATCH_RECORDS = 1024;
+
+    // Header offsets.
+    private static final int MAGIC_OFFSET = 0;
+
+    private static final int VERSION_OFFSET = 4;
+
+    private static final int COUNT_OFFSET = 8;
+
+    // Record offsets.
+    private static final int NAME_LENGTH_OFFSET = 0;
+
+    private static final int NAME_OFFSET = 2;
+
+    static final int LOG_GENERATION_OFFSET = 50;
+
+    static final int WINS_OFFSET = 52;
+
+    static final int LOSSES_OFFSET = 56;
+
+    static final int BLACKJACKS_OFFSET = 60;
+
+    private ProfileCodec() {
+        // Only static methods.
+    }
+
+    /**
+     * Writes a file header.
+     *
+     * @param buffer the buffer written to.
+     * @param offset the position of the header in the buffer.
+     * @param count  the number of records that follow the header.
+     */
+    public static void writeHeader(ByteBuffer buffer, int offset, int count) {
+        buffer.putInt(offset + MAGIC_OFFSET, MAGIC);
+        buffer.putInt(offset + VERSION_OFFSET, VERSION);
+        buffer.putInt(offset + COUNT_OFFSET, count);
+        buffer.putInt(offset + COUNT_OFFSET + 4, 0);
+    }
+
+    /**
+     * Reads and checks a file header.
+     *
+     * @param buffer the buffer read from.
+     * @param offset the position of the header in the buffer.
+     * @return the number of records that follow the header.
+     * @throws IOException if the header is not a profile header or was
+     *                     written by a newer version.
+     */
+    public static int readHeader(ByteBuffer buffer, int offset)
+            throws IOException {
+        if (buffer.getInt(offset + MAGIC_OFFSET) != MAGIC) {
+            throw new IOException("Not a profile file");
+        }
+        int version = buffer.getInt(offset + VERSION_OFFSET);
+        if (version < 1 || version > VERSION) {
+            throw new IOException("Unsupported profile version " + version);
+        }
+        return buffer.getInt(offset + COUNT_OFFSET);
+    }
+
+    /**
+     * Encodes a name as UTF-8 bytes, checking that it fits in a record.
+     *
+     * @param name the name of the player.
+     * @return the encoded name.
+     * @throws IllegalArgumentException if the name is too long.
+     */
+    public static byte[] encodeName(String name) {
+        byte[] bytes = name.getBytes(StandardCharsets.UTF_8);
+        if (bytes.length > MAX_NAME_BYTES) {
+            throw new IllegalArgumentException("Player names are limited to "
+                    + MAX_NAME_BYTES + " bytes: " + name);
+        }
+        return bytes;
+    }
+
+    /**
+     * Writes a player's record.
+     *
+     * @param player the player being written.
+     * @param buffer the buffer written to.
+     * @param offset the position of the record in the buffer.
+     * @throws IllegalArgumentException if the player's name is too long.
+     */
+    public static void encode(Player player, ByteBuffer buffer, int offset) {
+        encode(encodeName(player.getName()), player.getWins(),
+                player.getLosses(), player.getBlackjacks(), buffer, offset);
+    }
+
+    /**
+     * Writes a record from an already encoded name and stats.
+     *
+     * @param name       the UTF-8 name of the player.
+     * @param wins       the number of wins.
+     * @param losses     the number of losses.
+     * @param blackjacks the number of blackjacks.
+     * @param buffer     the buffer written to.
+     * @param offset     the position of the record in the buffer.
+     */
+    public static void encode(byte[] name, int wins, int losses,
+            int blackjacks, ByteBuffer buffer, int offset) {
+        buffer.putShort(offset + NAME_LENGTH_OFFSET, (short) name.length);
+        for (int i = 0; i < MAX_NAME_BYTES + 2; i++) {
+            // Pads the rest of the name and the log generation with zeros.
+            buffer.put(offset + NAME_OFFSET + i,
+                    i < name.length ? name[i] : 0);
+        }
+        buffer.putInt(offset + WINS_OFFSET, wins);
+        buffer.putInt(offset + LOSSES_OFFSET, losses);
+        buffer.putInt(offset + BLACKJACKS_OFFSET, blackjacks);
+    }
+
+    /**
+     * Reads a player's record.
+     *
+     * @param buffer the buffer read from.
+     * @param offset the position of the record in the buffer.
+     * @return a new player with the saved stats.
+     */
+    public static Player decode(ByteBuffer buffer, int offset) {
+        return new Player(decodeName(buffer, offset),
+                buffer.getInt(offset + WINS_OFFSET),
+                buffer.getInt(offset + LOSSES_OFFSET),
+                buffer.getInt(offset + BLACKJACKS_OFFSET));
+    }
+
+    /**
+     * Reads only the UTF-8 name bytes of a record.
+     *
+     * @param buffer the buffer read from.
+     * @param offset the position of the record in the buffer.
+     * @return the encoded name.
+     */
+    public static byte[] readName(ByteBuffer buffer, int offset) {
+        byte[] name = new byte[nameLength(buffer, offset)];
+        for (int i = 0; i < name.length; i++) {
+            name[i] = buffer.get(offset + NAME_OFFSET + i);
+        }
+        return name;
+    }
+
+    /**
+     * Reads the name of a record.
+     *
+     * @param buffer the buffer read from.
+     * @param offset the position of the record in the buffer.
+     * @return the name of the player.
+     */
+    public static String decodeName(ByteBuffer buffer, int offset) {
+        return new String(readName(buffer, offset), StandardCharsets.UTF_8);
+    }
+
+    /**
+     * Checks whether a record belongs to a name without decoding the record.
+     *
+     * @param buffer the buffer read from.
+     * @param offset the position of the record in the buffer.
+     * @param name   the UTF-8 name being looked for.
+     * @return true if the record's name is the same.
+     */
+    public static boolean nameMatches(ByteBuffer buffer, int offset,
+            byte[] name) {
+        if (nameLength(buffer, offset) != name.length) {
+            return false;
+        }
+        for (int i = 0; i < name.length; i++) {
+            if (buffer.get(offset + NAME_OFFSET + i) != name[i]) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    private static int nameLength(ByteBuffer buffer, int offset) {
+        return buffer.getShort(offset + NAME_LENGTH_OFFSET);
+    }
+
+    /**
+     * Checks whether a file starts with a profile header, without moving the
+     * file's position.
+     *
+     * @param channel the file being checked.
+     * @return true if the file holds profiles in this format.
+     * @throws IOException if the file cannot be read.
+     */
+    public static boolean isProfileFile(FileChannel channel)
+            throws IOException {
+        ByteBuffer magic = ByteBuffer.allocate(4);
+        while (magic.hasRemaining()) {
+            if (channel.read(magic, magic.position()) < 0) {
+                return false;
+            }
+        }
+        return magic.getInt(0) == MAGIC;
+    }
+
+    /**
+     * Writes a header followed by a record for every player.
+     *
+     * @param channel the channel written to.
+     * @param players the players being written.
+     * @throws IOException if the channel cannot be written.
+     * @throws IllegalArgumentException if a player's name is too long.
+     */
+    public static void writeAll(WritableByteChannel channel,
+            Collection<Player> players) throws IOException {
+        ByteBuffer buffer = ByteBuffer.allocate(BATCH_RECORDS * RECORD_SIZE);
+        writeHeader(buffer, 0, players.size());
+        buffer.position(HEADER_SIZE);
+        for (Player player : players) {
+            if (buffer.remaining() < RECORD_SIZE) {
+                drain(channel, buffer);
+            }
+            encode(player, buffer, buffer.position());
+            buffer.position(buffer.position() + RECORD_SIZE);
+        }
+        drain(channel, buffer);
+    }
+
+    /**
+     * Reads a header and every record that follows it.
+     *
+     * @param channel the channel read from.
+     * @return an array list of new players with the saved stats.
+     * @throws IOException if the channel cannot be read, is not in this
+     *                     format or ends early.
+     */
+    public static ArrayList<Player> readAll(ReadableByteChannel channel)
+            throws IOException {
+        ArrayList<Player> players = new ArrayList<>();
+        forEach(channel, players::add);
+        return players;
+    }
+
+    /**
+     * Reads a header and passes a new player for each record that follows it
+     * to the action, one batch of records at a time, so that the whole file
+     * is never held in memory.
+     *
+     * @param channel the channel read from.
+     * @param action  the action performed on each player.
+     * @throws IOException if the channel cannot be read, is not in this
+     *                     format or ends early.
+     */
+    public static void forEach(ReadableByteChannel channel,
+            Consumer<Player> action) throws IOException {
+        scan(channel, (buffer, offset) -> action.accept(decode(buffer,
+                offset)));
+    }
+
+    /**
+     * Reads through a header and its records looking for one player. Only the
+     * name of each record is compared; the only record decoded is the match.
+     * If a name was saved more than once, the last copy is returned.
+     *
+     * @param channel the channel read from.
+     * @param name    the name of the player.
+     * @return a new player with the saved stats, or null if there is no
+     *         record with that name.
+     * @throws IOException if the channel cannot be read, is not in this
+     *                     format or ends early.
+     */
+    public static Player find(ReadableByteChannel channel, String name)
+            throws IOException {
+        byte[] encoded = name.getBytes(StandardCharsets.UTF_8);
+        Player[] found = new Player[1];
+        scan(channel, (buffer, offset) -> {
+            if (nameMatches(buffer, offset, encoded)) {
+                found[0] = decode(buffer, offset);
+            }
+        });
+        return found[0];
+    }
+
+    /**
+     * Called with the position of each record read by scan().
+     */
+    private interface RecordVisitor {
+        void visit(ByteBuffer buffer, int offset);
+    }
+
+    private static void scan(ReadableByteChannel channel,
+            RecordVisitor visitor) throws IOException {
+        ByteBuffer buffer = ByteBuffer.allocate(BATCH_RECORDS * RECORD_SIZE);
+        buffer.limit(HEADER_SIZE);
+        fill(channel, buffer);
+        int count = readHeader(buffer, 0);
+        if (count < 0) {
+            throw new IOException("Damaged profile header");
+        }
+        for (int read = 0; read < count;) {
+            int batch = Math.min(count - read, BATCH_RECORDS);
+            buffer.clear();
+            buffer.limit(batch * RECORD_SIZE);
+            fill(channel, buffer);
+            for (int i = 0; i < batch; i++) {
+                visitor.visit(buffer, i * RECORD_SIZE);
+            }
+            read += batch;
+        }
+    }
+
+    private static void drain(WritableByteChannel channel, ByteBuffer buffer)
+            throws IOException {
+        buffer.flip();
+        while (buffer.hasRemaining()) {
+            channel.write(buffer);
+        }
+        buffer.clear();
+    }
+
+    private static void fill(ReadableByteChannel channel, ByteBuffer buffer)
+            throws IOException {
+        while (buffer.hasRemaining()) {
+            if (channel.read(buffer) < 0) {
+                throw new EOFException("The profile file ends early");
+            }
+        }
+    }
+}
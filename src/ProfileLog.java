@@ -0,0 +1,369 @@
+import java.io.Closeable;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.channels.FileLock;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Paths;
+import java.nio.file.StandardOpenOption;
+import java.util.zip.CRC32;
+
+/**
+ * The profile log is a write-ahead log of stat changes, saved in
+ * {@code <name>.wal} next to a profile store. Changes are appended to the end
+ * of the log as small records and forced to disk once per batch, which is
+ * much cheaper than updating the store for every hand. Compaction later adds
+ * the logged changes to the store, forces the store to disk and empties the
+ * log, starting a new generation.
+ *
+ * <p>
+ * Each log record holds a name, the wins, losses and blackjacks to add, and a
+ * checksum. A record cut short by a crash fails its checksum and is ignored
+ * along with anything after it, since it was never confirmed as written.
+ * Compaction combines the changes for each player and records the log's
+ * generation in the player's store record as it applies them, so a
+ * compaction that is interrupted can simply be run again. Logs are shared
+ * between processes using a lock on the whole file.
+ *
+ * <p>
+ * The header also records what the log is doing. Before any change is
+ * applied, the log is marked as being compacted and forced to disk. If a
+ * compaction is interrupted, the mark stays and appends are refused until
+ * the compaction has been run again, so new changes can never join a
+ * generation that some players have already been given. Store records only
+ * have room for two bytes of generation, so generations count from 1 up to
+ * 0x7FFF. Before they start again, every record's generation is cleared
+ * while the log is empty, so an old generation is never mistaken for a new
+ * one.
+ *
+ * @author gunnarvonbergen
+ *
+ */
+public class ProfileLog implements Closeable {
+
+    private static final int HEADER_SIZE = 16;
+
+    private static final int MAGIC = 0x53323157; // "S21W"
+
+    private static final int VERSION = 1;
+
+    private static final int MAGIC_OFFSET = 0;
+
+    private static final int VERSION_OFFSET = 4;
+
+    private static final int GENERATION_OFFSET = 8;
+
+    private static final int STATE_OFFSET = 12;
+
+    // Changes can be appended.
+    private static final int STATE_OPEN = 0;
+
+    // The logged changes are being applied to the store.
+    private static final int STATE_APPLYING = 1;
+
+    // The last generation has been applied and the generations in the store
+    // are being cleared before starting again from 1.
+    private static final int STATE_CLEARING = 2;
+
+    // Name length, three counters and a checksum, plus the name.
+    private static final int RECORD_OVERHEAD = 2 + 12 + 4;
+
+    // Generations are stored in two bytes of each store record, so they
+    // count from 1 up to this and then start again once the store's
+    // generations have been cleared.
+    private static final int MAX_GENERATION = 0x7FFF;
+
+    private final FileChannel channel;
+
+    // Where a failed append that could not be cut back started, and the
+    // size it left the log at, or -1 if there is nothing to cut. Guarded by
+    // this.
+    private long uncutStart = -1;
+
+    private long uncutSize;
+
+    /**
+     * Thrown when an append fails and the log cannot be cut back afterwards,
+     * so some of the batch may be in the log. The batch must not be saved
+     * anywhere else; appending it again once the log is working cuts off
+     * what was left of it first.
+     */
+    public static class PartlyWrittenException extends IOException {
+
+        private static final long serialVersionUID = 1L;
+
+        PartlyWrittenException(IOException cause) {
+            super("The log could not be cut back after a failed append",
+                    cause);
+        }
+    }
+
+    /**
+     * Opens the log with the given base name, creating it if it does not
+     * exist yet.
+     *
+     * @param baseName the path of the log without the .wal extension.
+     * @throws IOException if the log cannot be opened or is not a profile
+     *                     log.
+     */
+    public ProfileLog(String baseName) throws IOException {
+        channel = FileChannel.open(Paths.get(baseName + ".wal"),
+                StandardOpenOption.CREATE, StandardOpenOption.READ,
+                StandardOpenOption.WRITE);
+        try (FileLock lock = channel.lock()) {
+            if (channel.size() < HEADER_SIZE) {
+                reset(1, STATE_OPEN);
+            } else {
+                ByteBuffer header = read(0, HEADER_SIZE);
+                if (header.getInt(MAGIC_OFFSET) != MAGIC
+                        || header.getInt(VERSION_OFFSET) != VERSION) {
+                    throw new IOException(baseName
+                            + ".wal is not a profile log");
+                }
+            }
+        } catch (IOException | RuntimeException e) {
+            channel.close();
+            throw e;
+        }
+    }
+
+    /**
+     * Appends every change in a batch to the log and forces it to disk
+     * before returning. If the batch cannot be written, the log is cut back
+     * to its size before the append, so either the whole batch is logged or
+     * none of it is.
+     *
+     * @param batch the changes, combined per player.
+     * @throws IOException if a compaction of the log was interrupted and has
+     *                     not been run again yet. None of the batch is in
+     *                     the log.
+     * @throws PartlyWrittenException if the log could not be cut back, so
+     *                                some of the batch may still be in it.
+     * @throws IOException if the log cannot be written. None of the batch is
+     *                     in the log.
+     * @throws IllegalArgumentException if a player's name is too long.
+     */
+    public void append(PlayerRegistry batch) throws IOException {
+        ByteBuffer records = encode(batch);
+        synchronized (this) {
+            try (FileLock lock = channel.lock()) {
+                cutBack();
+                if (read(0, HEADER_SIZE).getInt(STATE_OFFSET) != STATE_OPEN) {
+                    throw new IOException("A compaction of the log did not"
+                            + " finish and must be run again first");
+                }
+                long start = channel.size();
+                long position = start;
+                try {
+                    while (records.hasRemaining()) {
+                        position += channel.write(records, position);
+                    }
+                    channel.force(false);
+                } catch (IOException ioe) {
+                    rollBack(start, ioe);
+                    throw ioe;
+                }
+            }
+        }
+    }
+
+    /**
+     * Returns the size of the logged changes in bytes.
+     *
+     * @return how much of the log is waiting to be compacted.
+     * @throws IOException if the log's size cannot be read.
+     */
+    public long size() throws IOException {
+        return channel.size() - HEADER_SIZE;
+    }
+
+    /**
+     * Adds every logged change to the store, forces the store to disk and
+     * empties the log. This is also how changes are recovered after a crash,
+     * and how a compaction that was interrupted is finished.
+     *
+     * @param store the store the changes are added to.
+     * @return the number of players whose stats changed.
+     * @throws IOException if the log cannot be read or emptied.
+     */
+    public synchronized int compact(ProfileStorage store) throws IOException {
+        try (FileLock lock = channel.lock()) {
+            cutBack();
+            long size = channel.size();
+            ByteBuffer header = read(0, HEADER_SIZE);
+            int generation = header.getInt(GENERATION_OFFSET);
+            int state = header.getInt(STATE_OFFSET);
+            if (state == STATE_OPEN) {
+                if (size <= HEADER_SIZE) {
+                    return 0;
+                }
+                // From here until the log is reset, nothing more may join
+                // this generation.
+                writeHeader(generation, STATE_APPLYING);
+                state = STATE_APPLYING;
+            }
+            int[] applied = new int[1];
+            if (state == STATE_APPLYING) {
+                PlayerRegistry changes = decode(read(HEADER_SIZE,
+                        (int) (size - HEADER_SIZE)));
+                changes.forEach(change -> {
+                    if (store.apply(change.getName(), change.getWins(),
+                            change.getLosses(), change.getBlackjacks(),
+                            generation)) {
+                        applied[0]++;
+                    }
+                });
+                store.flush();
+                if (generation < MAX_GENERATION) {
+                    reset(generation + 1, STATE_OPEN);
+                    return applied[0];
+                }
+                reset(generation, STATE_CLEARING);
+            }
+            store.clearLogGenerations();
+            store.flush();
+            reset(1, STATE_OPEN);
+            return applied[0];
+        }
+    }
+
+    /**
+     * Closes the log file. Changes in the log stay there until the next
+     * compaction.
+     *
+     * @throws IOException if the log cannot be closed.
+     */
+    @Override
+    public synchronized void close() throws IOException {
+        channel.close();
+    }
+
+    /**
+     * Empties the log and writes a new header.
+     */
+    private void reset(int generation, int state) throws IOException {
+        channel.truncate(HEADER_SIZE);
+        writeHeader(generation, state);
+    }
+
+    /**
+     * Writes the header and forces it to disk.
+     */
+    private void writeHeader(int generation, int state) throws IOException {
+        ByteBuffer header = ByteBuffer.allocate(HEADER_SIZE);
+        header.putInt(MAGIC_OFFSET, MAGIC);
+        header.putInt(VERSION_OFFSET, VERSION);
+        header.putInt(GENERATION_OFFSET, generation);
+        header.putInt(STATE_OFFSET, state);
+        while (header.hasRemaining()) {
+            channel.write(header, header.position());
+        }
+        channel.force(true);
+    }
+
+    /**
+     * Cuts the log back to where a failed append started. If even that
+     * fails, the append is remembered so that it can be cut off before the
+     * log is next written or compacted.
+     */
+    private void rollBack(long start, IOException failure)
+            throws PartlyWrittenException {
+        try {
+            channel.truncate(start);
+            channel.force(false);
+        } catch (IOException ioe) {
+            failure.addSuppressed(ioe);
+            try {
+                uncutSize = channel.size();
+                uncutStart = start;
+            } catch (IOException ignored) {
+                uncutStart = -1;
+            }
+            throw new PartlyWrittenException(failure);
+        }
+    }
+
+    /**
+     * Cuts off what was left of a failed append, unless another process has
+     * appended after it, since its records would be cut off too.
+     */
+    private void cutBack() throws IOException {
+        if (uncutStart < 0) {
+            return;
+        }
+        if (channel.size() == uncutSize) {
+            channel.truncate(uncutStart);
+            channel.force(false);
+        }
+        uncutStart = -1;
+    }
+
+    private ByteBuffer read(long position, int length) throws IOException {
+        ByteBuffer buffer = ByteBuffer.allocate(length);
+        while (buffer.hasRemaining()) {
+            if (channel.read(buffer, position + buffer.position()) < 0) {
+                break;
+            }
+        }
+        buffer.flip();
+        return buffer;
+    }
+
+    private static ByteBuffer encode(PlayerRegistry batch) {
+        byte[][] names = new byte[batch.size()][];
+        int[] length = new int[1];
+        int[] next = new int[1];
+        batch.forEach(change -> {
+            byte[] name = ProfileCodec.encodeName(change.getName());
+            names[next[0]++] = name;
+            length[0] += RECORD_OVERHEAD + name.length;
+        });
+        ByteBuffer records = ByteBuffer.allocate(length[0]);
+        CRC32 crc = new CRC32();
+        next[0] = 0;
+        batch.forEach(change -> {
+            int start = records.position();
+            byte[] name = names[next[0]++];
+            records.putShort((short) name.length);
+            records.put(name);
+            records.putInt(change.getWins());
+            records.putInt(change.getLosses());
+            records.putInt(change.getBlackjacks());
+            crc.reset();
+            crc.update(records.array(), start, records.position() - start);
+            records.putInt((int) crc.getValue());
+        });
+        records.flip();
+        return records;
+    }
+
+    /**
+     * Reads log records up to the first one that is incomplete or damaged,
+     * combining the changes for each player.
+     */
+    private static PlayerRegistry decode(ByteBuffer records) {
+        PlayerRegistry changes = new PlayerRegistry();
+        CRC32 crc = new CRC32();
+        while (records.remaining() >= RECORD_OVERHEAD) {
+            int start = records.position();
+            int length = records.getShort(start);
+            if (length < 0 || length > ProfileCodec.MAX_NAME_BYTES
+                    || records.remaining() < RECORD_OVERHEAD + length) {
+                break;
+            }
+            int end = start + RECORD_OVERHEAD + length - 4;
+            crc.reset();
+            crc.update(records.array(), start, end - start);
+            if (records.getInt(end) != (int) crc.getValue()) {
+                break;
+            }
+            String name = new String(records.array(), start + 2, length,
+                    StandardCharsets.UTF_8);
+            int counters = start + 2 + length;
+            changes.add(name, records.getInt(counters),
+                    records.getInt(counters + 4), records.getInt(counters + 8));
+            records.position(end + 4);
+        }
+        return changes;
+    }
+}
@@ -0,0 +1,115 @@
+import java.io.Closeable;
+import java.io.File;
+import java.io.IOException;
+import java.util.function.Consumer;
+
+/**
+ * Profile storage saves player profiles so that a single player can be
+ * loaded or updated without touching the others. It is implemented by
+ * {@link ProfileStore}, which keeps every profile in one pair of files, and
+ * by {@link ShardedProfileStore}, which spreads profiles over several.
+ *
+ * @author gunnarvonbergen
+ *
+ */
+public interface ProfileStorage extends Closeable {
+
+    /**
+     * Opens the profile storage with the given base name: sharded storage if
+     * it has been resharded, otherwise a single profile store.
+     *
+     * @param baseName the path of the storage without extensions.
+     * @return the opened storage.
+     * @throws IOException if the storage cannot be opened.
+     */
+    static ProfileStorage open(String baseName) throws IOException {
+        if (new File(ShardedProfileStore.manifestName(baseName)).exists()) {
+            return new ShardedProfileStore(baseName);
+        }
+        return new ProfileStore(baseName);
+    }
+
+    /**
+     * Loads a player's profile.
+     *
+     * @param name the name of the player.
+     * @return a new player object with the stored stats, or null if there is
+     *         no profile with that name.
+     */
+    Player load(String name);
+
+    /**
+     * Saves a player's wins, losses and blackjacks, adding a new profile if
+     * the player has not been saved before.
+     *
+     * @param player the player being saved.
+     * @throws IllegalArgumentException if the player's name is too long.
+     */
+    void save(Player player);
+
+    /**
+     * Adds to a player's stored wins, losses and blackjacks, adding a new
+     * profile if the player has not been saved before.
+     *
+     * @param name       the name of the player.
+     * @param wins       the number of wins to add.
+     * @param losses     the number of losses to add.
+     * @param blackjacks the number of blackjacks to add.
+     * @throws IllegalArgumentException if the player's name is too long.
+     */
+    void add(String name, int wins, int losses, int blackjacks);
+
+    /**
+     * Adds one player's changes from a generation of the change log, unless
+     * that generation has already been added to the player.
+     *
+     * @param name       the name of the player.
+     * @param wins       the number of wins to add.
+     * @param losses     the number of losses to add.
+     * @param blackjacks the number of blackjacks to add.
+     * @param generation the generation of the log the changes came from.
+     * @return true if the changes were added, false if they already had
+     *         been.
+     * @throws IllegalArgumentException if the player's name is too long.
+     * @see ProfileLog
+     */
+    boolean apply(String name, int wins, int losses, int blackjacks,
+            int generation);
+
+    /**
+     * Forgets which generation of the change log was last added to every
+     * profile, so that the log's generations can start again. Only called
+     * by the log while it is empty.
+     *
+     * @see ProfileLog
+     */
+    void clearLogGenerations();
+
+    /**
+     * Checks whether a profile with the given name has been saved.
+     *
+     * @param name the name of the player.
+     * @return true if the player has a profile.
+     */
+    boolean contains(String name);
+
+    /**
+     * Returns the number of saved profiles.
+     *
+     * @return the profile count as an integer.
+     */
+    int size();
+
+    /**
+     * Passes a new player object for every saved profile to the action, one
+     * at a time.
+     *
+     * @param action the action performed on each player.
+     */
+    void forEach(Consumer<Player> action);
+
+    /**
+     * Writes any changes that are still in memory to the disk.
+     */
+    void flush();
+}
@@ -0,0 +1,580 @@
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.channels.FileLock;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.util.concurrent.locks.ReentrantLock;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+import java.util.function.Consumer;
+
+/**
+ * The profile store saves player profiles on disk as fixed size records, so
+ * that one player can be loaded or updated without reading or rewriting any
+ * other profile. It uses two memory mapped files:
+ *
+ * <ul>
+ * <li>{@code <name>.dat} holds a header followed by one 64 byte record per
+ * player, in the layout defined by {@link ProfileCodec}. Records never move
+ * once they are written.</li>
+ * <li>{@code <name>.idx} is an open addressing hash table that maps a
+ * player's name to the number of their record. It is kept at most half full
+ * and is rebuilt from the records if it is missing or needs to grow.</li>
+ * </ul>
+ *
+ * <p>
+ * Several games, in this process or in others, can use the same store at
+ * once. Stats are changed while holding a lock on just that player's record,
+ * a file region lock between processes and a striped lock between threads,
+ * so sessions for different players never wait for each other and changes
+ * to the same player are added together rather than lost. Adding a new
+ * player locks the data file's header instead. A grown index is written to a
+ * new file that replaces the old one, and the data header counts these
+ * generations so that other processes know to open the new index. Each
+ * process should open a store only once.
+ *
+ * @author gunnarvonbergen
+ *
+ */
+public class ProfileStore implements ProfileStorage {
+
+    /**
+     * The longest name, in UTF-8 bytes, that fits in a record.
+     */
+    public static final int MAX_NAME_BYTES = ProfileCodec.MAX_NAME_BYTES;
+
+    static final int RECORD_SIZE = ProfileCodec.RECORD_SIZE;
+
+    private static final int HEADER_SIZE = 64;
+
+    private static final int DATA_MAGIC = 0x53323144; // "S21D"
+
+    private static final int INDEX_MAGIC = 0x53323149; // "S21I"
+
+    // Header offsets. The data header holds the record count and the version
+    // of the record layout, the index header holds the number of slots. Both
+    // hold the generation of the current index.
+    private static final int MAGIC_OFFSET = 0;
+
+    private static final int VERSION_OFFSET = 4;
+
+    private static final int COUNT_OFFSET = 8;
+
+    private static final int GENERATION_OFFSET = 12;
+
+    private static final int WINS_OFFSET = ProfileCodec.WINS_OFFSET;
+
+    private static final int LOSSES_OFFSET = ProfileCodec.LOSSES_OFFSET;
+
+    private static final int BLACKJACKS_OFFSET = ProfileCodec.BLACKJACKS_OFFSET;
+
+    private static final int LOG_GENERATION_OFFSET =
+            ProfileCodec.LOG_GENERATION_OFFSET;
+
+    private static final int INITIAL_CAPACITY = 512;
+
+    private static final int STRIPES = 64;
+
+    private final Path indexPath;
+
+    private final FileChannel dataChannel;
+
+    private FileChannel indexChannel;
+
+    // Mappings only ever grow, so a record that fits in one mapping can be
+    // read through any later one.
+    private volatile MappedByteBuffer data;
+
+    private MappedByteBuffer index;
+
+    // Number of records the data mapping has room for.
+    private volatile int capacity;
+
+    // Number of slots in the index. Always a power of two.
+    private int slots;
+
+    // Generation of the index that is mapped.
+    private int generation;
+
+    // Held for reading while probing the index, and for writing while the
+    // mappings are changed or a record is added.
+    private final ReentrantReadWriteLock structure =
+            new ReentrantReadWriteLock();
+
+    // Keeps two threads from locking the same record's region of the file,
+    // which file locks do not allow within one process.
+    private final ReentrantLock[] stripes = new ReentrantLock[STRIPES];
+
+    /**
+     * Opens the profile store with the given base name, creating its files if
+     * they do not exist yet.
+     *
+     * @param baseName the path of the store without the .dat/.idx extension.
+     * @throws IOException if the files cannot be opened or are not profile
+     *                     store files.
+     */
+    public ProfileStore(String baseName) throws IOException {
+        Path dataPath = Paths.get(baseName + ".dat");
+        indexPath = Paths.get(baseName + ".idx");
+        for (int i = 0; i < STRIPES; i++) {
+            stripes[i] = new ReentrantLock();
+        }
+        dataChannel = FileChannel.open(dataPath, StandardOpenOption.CREATE,
+                StandardOpenOption.READ, StandardOpenOption.WRITE);
+
+        try (FileLock lock = lockHeader()) {
+            if (dataChannel.size() < HEADER_SIZE) {
+                mapData(INITIAL_CAPACITY);
+                data.putInt(MAGIC_OFFSET, DATA_MAGIC);
+                data.putInt(VERSION_OFFSET, ProfileCodec.VERSION);
+                data.putInt(COUNT_OFFSET, 0);
+                data.putInt(GENERATION_OFFSET, 0);
+            } else {
+                mapData(Math.max(recordsInFile(), INITIAL_CAPACITY));
+                if (data.getInt(MAGIC_OFFSET) != DATA_MAGIC) {
+                    throw new IOException(dataPath + " is not a profile store");
+                }
+                int version = data.getInt(VERSION_OFFSET);
+                if (version < 1 || version > ProfileCodec.VERSION) {
+                    throw new IOException(dataPath
+                            + " was saved in unsupported version " + version);
+                }
+            }
+            openIndex();
+        } catch (IOException | RuntimeException e) {
+            dataChannel.close();
+            if (indexChannel != null) {
+                indexChannel.close();
+            }
+            throw e;
+        }
+    }
+
+    /**
+     * Loads a player's profile.
+     *
+     * @param name the name of the player.
+     * @return a new player object with the stored stats, or null if there is
+     *         no profile with that name.
+     */
+    @Override
+    public Player load(String name) {
+        int record = locate(ProfileCodec.encodeName(name), false);
+        if (record < 0) {
+            return null;
+        }
+        int offset = recordOffset(record);
+        ReentrantLock stripe = stripes[record % STRIPES];
+        stripe.lock();
+        try (FileLock lock = dataChannel.lock(offset, RECORD_SIZE, true)) {
+            return ProfileCodec.decode(data, offset);
+        } catch (IOException ioe) {
+            throw new UncheckedIOException(ioe);
+        } finally {
+            stripe.unlock();
+        }
+    }
+
+    /**
+     * Saves a player's wins, losses and blackjacks, adding a new profile if
+     * the player has not been saved before. Only the player's own record is
+     * written.
+     *
+     * @param player the player being saved.
+     * @throws IllegalArgumentException if the player's name is too long.
+     */
+    @Override
+    public void save(Player player) {
+        update(player.getName(), false, player.getWins(), player.getLosses(),
+                player.getBlackjacks(), -1);
+    }
+
+    /**
+     * Adds to a player's stored wins, losses and blackjacks, adding a new
+     * profile if the player has not been saved before. Changes made to the
+     * same player at the same time by other threads or processes are all
+     * kept.
+     *
+     * @param name       the name of the player.
+     * @param wins       the number of wins to add.
+     * @param losses     the number of losses to add.
+     * @param blackjacks the number of blackjacks to add.
+     * @throws IllegalArgumentException if the player's name is too long.
+     */
+    @Override
+    public void add(String name, int wins, int losses, int blackjacks) {
+        update(name, true, wins, losses, blackjacks, -1);
+    }
+
+    /**
+     * Adds one player's changes from a generation of the change log. The
+     * record remembers the last generation applied to it, so applying the
+     * same generation again after a crash changes nothing. Each player must
+     * be applied at most once per generation.
+     *
+     * @param name       the name of the player.
+     * @param wins       the number of wins to add.
+     * @param losses     the number of losses to add.
+     * @param blackjacks the number of blackjacks to add.
+     * @param generation the generation of the log the changes came from.
+     * @return true if the changes were added, false if they already had
+     *         been.
+     * @throws IllegalArgumentException if the player's name is too long.
+     */
+    @Override
+    public boolean apply(String name, int wins, int losses, int blackjacks,
+            int generation) {
+        return update(name, true, wins, losses, blackjacks, generation);
+    }
+
+    /**
+     * Clears the log generation of every record. Only the generations are
+     * written, so stats being changed at the same time are not disturbed.
+     * The header lock is held so that no record is added part way through.
+     */
+    @Override
+    public void clearLogGenerations() {
+        structure.writeLock().lock();
+        try (FileLock lock = lockHeader()) {
+            refresh();
+            int records = size();
+            for (int record = 0; record < records; record++) {
+                data.putShort(recordOffset(record) + LOG_GENERATION_OFFSET,
+                        (short) 0);
+            }
+        } catch (IOException ioe) {
+            throw new UncheckedIOException(ioe);
+        } finally {
+            structure.writeLock().unlock();
+        }
+    }
+
+    /**
+     * Checks whether a profile with the given name has been saved.
+     *
+     * @param name the name of the player.
+     * @return true if the player has a profile.
+     */
+    @Override
+    public boolean contains(String name) {
+        return locate(ProfileCodec.encodeName(name), false) >= 0;
+    }
+
+    /**
+     * Returns the number of saved profiles, including those added by other
+     * processes.
+     *
+     * @return the profile count as an integer.
+     */
+    @Override
+    public int size() {
+        return data.getInt(COUNT_OFFSET);
+    }
+
+    /**
+     * Passes a new player object for every saved profile to the action, in
+     * the order they were added. Records are read without locking them, so a
+     * player whose stats are being changed at the same time may be seen part
+     * way through the change.
+     *
+     * @param action the action performed on each player.
+     */
+    @Override
+    public void forEach(Consumer<Player> action) {
+        // The mapping is replaced before the capacity grows, so it always
+        // has room for the capacity read first.
+        int records = Math.min(size(), capacity);
+        MappedByteBuffer data = this.data;
+        for (int record = 0; record < records; record++) {
+            action.accept(ProfileCodec.decode(data, recordOffset(record)));
+        }
+    }
+
+    /**
+     * Writes any changes that are still in memory to the disk.
+     */
+    @Override
+    public void flush() {
+        structure.readLock().lock();
+        try {
+            data.force();
+            index.force();
+        } finally {
+            structure.readLock().unlock();
+        }
+    }
+
+    /**
+     * Flushes and closes the store's files.
+     *
+     * @throws IOException if the files cannot be closed.
+     */
+    @Override
+    public void close() throws IOException {
+        structure.writeLock().lock();
+        try {
+            data.force();
+            index.force();
+            dataChannel.close();
+            indexChannel.close();
+        } finally {
+            structure.writeLock().unlock();
+        }
+    }
+
+    /**
+     * Sets or adds to the stats in a player's record while holding the lock
+     * on that record. A log generation of -1 means the change did not come
+     * from the change log.
+     */
+    private boolean update(String name, boolean add, int wins, int losses,
+            int blackjacks, int generation) {
+        int record = locate(ProfileCodec.encodeName(name), true);
+        int offset = recordOffset(record);
+        ReentrantLock stripe = stripes[record % STRIPES];
+        stripe.lock();
+        try (FileLock lock = dataChannel.lock(offset, RECORD_SIZE, false)) {
+            MappedByteBuffer data = this.data;
+            if (generation >= 0) {
+                short applied = data.getShort(offset + LOG_GENERATION_OFFSET);
+                if (applied == (short) generation) {
+                    return false;
+                }
+            }
+            if (add) {
+                wins += data.getInt(offset + WINS_OFFSET);
+                losses += data.getInt(offset + LOSSES_OFFSET);
+                blackjacks += data.getInt(offset + BLACKJACKS_OFFSET);
+            }
+            data.putInt(offset + WINS_OFFSET, wins);
+            data.putInt(offset + LOSSES_OFFSET, losses);
+            data.putInt(offset + BLACKJACKS_OFFSET, blackjacks);
+            if (generation >= 0) {
+                data.putShort(offset + LOG_GENERATION_OFFSET,
+                        (short) generation);
+            }
+            return true;
+        } catch (IOException ioe) {
+            throw new UncheckedIOException(ioe);
+        } finally {
+            stripe.unlock();
+        }
+    }
+
+    /**
+     * Finds the record number of a name. If the name is not in the mapped
+     * index, the store is checked for changes made by other processes before
+     * giving up or adding a new record.
+     *
+     * @param name   the encoded name of the player.
+     * @param create whether to add a record if the name is not stored.
+     * @return the record number, or -1 if the name is not stored.
+     */
+    private int locate(byte[] name, boolean create) {
+        structure.readLock().lock();
+        try {
+            int record = find(name);
+            if (record >= 0) {
+                return record;
+            }
+        } finally {
+            structure.readLock().unlock();
+        }
+
+        structure.writeLock().lock();
+        try (FileLock lock = lockHeader()) {
+            refresh();
+            int record = find(name);
+            if (record < 0 && create) {
+                record = append(name);
+            }
+            return record;
+        } catch (IOException ioe) {
+            throw new UncheckedIOException(ioe);
+        } finally {
+            structure.writeLock().unlock();
+        }
+    }
+
+    /**
+     * Takes the file lock on the data header, which is held while records are
+     * added or the files are grown.
+     */
+    private FileLock lockHeader() throws IOException {
+        return dataChannel.lock(0, HEADER_SIZE, false);
+    }
+
+    /**
+     * Catches up with records added and indexes rebuilt by other processes.
+     * Called while holding the header lock.
+     */
+    private void refresh() throws IOException {
+        int records = recordsInFile();
+        if (records > capacity) {
+            mapData(records);
+        }
+        if (data.getInt(GENERATION_OFFSET) != generation) {
+            openIndex();
+        }
+    }
+
+    /**
+     * Opens and maps the current index file, rebuilding it if it is missing,
+     * damaged or out of date. Called while holding the header lock.
+     */
+    private void openIndex() throws IOException {
+        if (indexChannel != null) {
+            indexChannel.close();
+        }
+        indexChannel = FileChannel.open(indexPath, StandardOpenOption.CREATE,
+                StandardOpenOption.READ, StandardOpenOption.WRITE);
+        long size = indexChannel.size();
+        if (size >= HEADER_SIZE) {
+            index = indexChannel.map(FileChannel.MapMode.READ_WRITE, 0, size);
+            slots = index.getInt(COUNT_OFFSET);
+            generation = index.getInt(GENERATION_OFFSET);
+            if (index.getInt(MAGIC_OFFSET) == INDEX_MAGIC && slots > 0
+                    && Integer.bitCount(slots) == 1
+                    && size >= HEADER_SIZE + 4L * slots
+                    && generation == data.getInt(GENERATION_OFFSET)) {
+                return;
+            }
+        }
+        rebuildIndex(slotsFor(size()));
+    }
+
+    /**
+     * Hashes an encoded name for the index.
+     */
+    private static int hash(byte[] name) {
+        int h = 1;
+        for (byte b : name) {
+            h = 31 * h + b;
+        }
+        h *= 0x9E3779B1;
+        return h ^ (h >>> 16);
+    }
+
+    /**
+     * Finds the record number of a name by probing the mapped index.
+     *
+     * @return the record number, or -1 if the name is not in the index or
+     *         its record is past the end of the data mapping.
+     */
+    private int find(byte[] name) {
+        int mask = slots - 1;
+        for (int slot = hash(name) & mask;; slot = (slot + 1) & mask) {
+            int entry = index.getInt(slotOffset(slot));
+            if (entry == 0 || entry > capacity) {
+                return -1;
+            }
+            if (ProfileCodec.nameMatches(data, recordOffset(entry - 1),
+                    name)) {
+                return entry - 1;
+            }
+        }
+    }
+
+    /**
+     * Adds a new, empty record for a name and indexes it. The record is
+     * written before it is counted or indexed, so other processes never see
+     * half of one. Called while holding the header lock.
+     *
+     * @return the number of the new record.
+     */
+    private int append(byte[] name) throws IOException {
+        int record = size();
+        if (record == capacity) {
+            mapData(capacity * 2);
+        }
+        if ((record + 1) * 2L > slots) {
+            rebuildIndex(slots * 2);
+        }
+        ProfileCodec.encode(name, 0, 0, 0, data, recordOffset(record));
+        data.putInt(COUNT_OFFSET, record + 1);
+        insert(index, slots, name, record);
+        return record;
+    }
+
+    private static void insert(MappedByteBuffer index, int slots, byte[] name,
+            int record) {
+        int mask = slots - 1;
+        int slot = hash(name) & mask;
+        while (index.getInt(slotOffset(slot)) != 0) {
+            slot = (slot + 1) & mask;
+        }
+        index.putInt(slotOffset(slot), record + 1);
+    }
+
+    /**
+     * Maps the data file with room for the given number of records, growing
+     * the file if needed.
+     */
+    private void mapData(int records) throws IOException {
+        long size = HEADER_SIZE + (long) records * RECORD_SIZE;
+        if (size > Integer.MAX_VALUE) {
+            throw new IOException("The profile store is full");
+        }
+        data = dataChannel.map(FileChannel.MapMode.READ_WRITE, 0, size);
+        capacity = records;
+    }
+
+    private int recordsInFile() throws IOException {
+        return (int) ((dataChannel.size() - HEADER_SIZE) / RECORD_SIZE);
+    }
+
+    /**
+     * Builds a new index with the given number of slots in a separate file by
+     * re-inserting the name of every record, then moves it over the old
+     * index. Processes still reading the old index keep a working copy until
+     * they notice the new generation. Called while holding the header lock.
+     */
+    private void rebuildIndex(int newSlots) throws IOException {
+        Path built = Paths.get(indexPath + ".tmp");
+        int newGeneration = data.getInt(GENERATION_OFFSET) + 1;
+        try (FileChannel channel = FileChannel.open(built,
+                StandardOpenOption.CREATE, StandardOpenOption.READ,
+                StandardOpenOption.WRITE,
+                StandardOpenOption.TRUNCATE_EXISTING)) {
+            MappedByteBuffer newIndex = channel.map(
+                    FileChannel.MapMode.READ_WRITE, 0,
+                    HEADER_SIZE + 4L * newSlots);
+            newIndex.putInt(MAGIC_OFFSET, INDEX_MAGIC);
+            newIndex.putInt(VERSION_OFFSET, ProfileCodec.VERSION);
+            newIndex.putInt(COUNT_OFFSET, newSlots);
+            newIndex.putInt(GENERATION_OFFSET, newGeneration);
+            int records = size();
+            for (int record = 0; record < records; record++) {
+                insert(newIndex, newSlots,
+                        ProfileCodec.readName(data, recordOffset(record)),
+                        record);
+            }
+            newIndex.force();
+        }
+        Files.move(built, indexPath, StandardCopyOption.REPLACE_EXISTING,
+                StandardCopyOption.ATOMIC_MOVE);
+        data.putInt(GENERATION_OFFSET, newGeneration);
+        openIndex();
+    }
+
+    /**
+     * Returns the smallest power of two number of slots that keeps the index
+     * at most half full.
+     */
+    private static int slotsFor(int records) {
+        int needed = Math.max(1024, records * 2);
+        return Integer.highestOneBit(needed - 1) << 1;
+    }
+
+    private static int recordOffset(int record) {
+        return HEADER_SIZE + record * RECORD_SIZE;
+    }
+
+    private static int slotOffset(int slot) {
+        return HEADER_SIZE + slot * 4;
+    }
+}
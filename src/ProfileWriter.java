@@ -0,0 +1,302 @@
+import java.io.Closeable;
+import java.io.IOException;
+
+/**
+ * The profile writer saves stat changes to a profile store in the background
+ * so that playing a hand never waits on the disk. Each change (wins, losses
+ * and blackjacks to add to a player) is queued in memory, where changes for
+ * the same player are combined. A background thread then writes every queued
+ * change and flushes the store once, either when the flush interval has
+ * passed or when enough players have queued changes. Closing the writer
+ * writes anything still queued.
+ *
+ * <p>
+ * If the writer is given a {@link ProfileLog}, each batch is appended to the
+ * log with a single force to disk instead of being written to the store.
+ * The log is compacted into the store in the background once it grows large
+ * enough or enough time has passed, and again when the writer is closed.
+ * A batch the log could not take is written to the store instead, unless
+ * some of it may have reached the log, in which case it stays queued for the
+ * next write so that no change is counted twice.
+ *
+ * @author gunnarvonbergen
+ *
+ */
+public class ProfileWriter implements Closeable {
+
+    /**
+     * How long changes wait before being written unless the writer is given
+     * another interval.
+     */
+    public static final long DEFAULT_FLUSH_MILLIS = 1000;
+
+    /**
+     * How many players can have queued changes before they are written
+     * unless the writer is given another limit.
+     */
+    public static final int DEFAULT_MAX_PENDING = 1024;
+
+    /**
+     * How large the log can grow, in bytes, before it is compacted unless
+     * the writer is given another limit.
+     */
+    public static final long DEFAULT_COMPACT_BYTES = 1 << 20;
+
+    /**
+     * How often the log is compacted, however small it is, unless the writer
+     * is given another interval.
+     */
+    public static final long DEFAULT_COMPACT_MILLIS = 30_000;
+
+    private final ProfileStorage store;
+
+    private final ProfileLog log;
+
+    private final long flushMillis;
+
+    private final int maxPending;
+
+    private final long compactBytes;
+
+    private final long compactMillis;
+
+    private volatile long lastCompaction = System.currentTimeMillis();
+
+    private final Thread thread;
+
+    // Changes waiting to be written, combined per player. Guarded by this.
+    private PlayerRegistry pending = new PlayerRegistry();
+
+    private boolean closed;
+
+    /**
+     * Creates a writer with the default flush interval and size limit.
+     *
+     * @param store the store changes are written to.
+     */
+    public ProfileWriter(ProfileStorage store) {
+        this(store, DEFAULT_FLUSH_MILLIS, DEFAULT_MAX_PENDING);
+    }
+
+    /**
+     * Creates a writer that logs changes, with the default intervals and
+     * limits.
+     *
+     * @param store the store changes are compacted into.
+     * @param log   the log changes are written to.
+     */
+    public ProfileWriter(ProfileStorage store, ProfileLog log) {
+        this(store, log, DEFAULT_FLUSH_MILLIS, DEFAULT_MAX_PENDING,
+                DEFAULT_COMPACT_BYTES, DEFAULT_COMPACT_MILLIS);
+    }
+
+    /**
+     * Creates a writer and starts its background thread.
+     *
+     * @param store       the store changes are written to.
+     * @param flushMillis the longest time a change waits before being
+     *                    written.
+     * @param maxPending  the number of players with queued changes that
+     *                    causes an early write.
+     */
+    public ProfileWriter(ProfileStorage store, long flushMillis,
+            int maxPending) {
+        this(store, null, flushMillis, maxPending, 0, 0);
+    }
+
+    /**
+     * Creates a writer and starts its background thread.
+     *
+     * @param store         the store changes are written or compacted to.
+     * @param log           the log changes are written to, or null to write
+     *                      them straight to the store.
+     * @param flushMillis   the longest time a change waits before being
+     *                      written.
+     * @param maxPending    the number of players with queued changes that
+     *                      causes an early write.
+     * @param compactBytes  the size of the log that causes a compaction.
+     * @param compactMillis the longest time between compactions.
+     */
+    public ProfileWriter(ProfileStorage store, ProfileLog log,
+            long flushMillis, int maxPending, long compactBytes,
+            long compactMillis) {
+        this.store = store;
+        this.log = log;
+        this.flushMillis = flushMillis;
+        this.maxPending = maxPending;
+        this.compactBytes = compactBytes;
+        this.compactMillis = compactMillis;
+        this.thread = new Thread(this::run, "profile-writer");
+        thread.setDaemon(true);
+        thread.start();
+    }
+
+    /**
+     * Queues stat changes for a player. Returns immediately; the changes are
+     * written later by the background thread.
+     *
+     * @param name       the name of the player.
+     * @param wins       the number of wins to add.
+     * @param losses     the number of losses to add.
+     * @param blackjacks the number of blackjacks to add.
+     * @throws IllegalStateException if the writer has been closed.
+     */
+    public synchronized void record(String name, int wins, int losses,
+            int blackjacks) {
+        if (closed) {
+            throw new IllegalStateException("The profile writer is closed");
+        }
+        pending.add(name, wins, losses, blackjacks);
+        if (pending.size() >= maxPending) {
+            notifyAll();
+        }
+    }
+
+    /**
+     * Writes every queued change to the store and flushes it to disk before
+     * returning.
+     */
+    public void flush() {
+        PlayerRegistry batch;
+        synchronized (this) {
+            if (pending.size() == 0) {
+                return;
+            }
+            // Swap in an empty queue so players can keep recording changes
+            // while this batch is written.
+            batch = pending;
+            pending = new PlayerRegistry();
+        }
+        write(batch);
+    }
+
+    /**
+     * Writes one batch of changes, either to the log or to the store, and
+     * forces it to disk once for the whole batch.
+     */
+    private void write(PlayerRegistry batch) {
+        if (log != null) {
+            try {
+                log.append(batch);
+                return;
+            } catch (ProfileLog.PartlyWrittenException pwe) {
+                // Some of the batch may be in the log, so saving it to the
+                // store as well could count it twice. Keep it queued and try
+                // the log again with the next batch.
+                System.out.println("Could not log changes: "
+                        + pwe.getMessage());
+                requeue(batch);
+                return;
+            } catch (IOException | RuntimeException e) {
+                // None of the batch is in the log. Fall back to the store so
+                // the changes are not lost.
+                System.out.println("Could not log changes: " + e.getMessage());
+            }
+        }
+        synchronized (store) {
+            batch.forEach(change -> {
+                try {
+                    store.add(change.getName(), change.getWins(),
+                            change.getLosses(), change.getBlackjacks());
+                } catch (RuntimeException re) {
+                    System.out.println("Could not save " + change.getName()
+                            + ": " + re.getMessage());
+                }
+            });
+            store.flush();
+        }
+    }
+
+    /**
+     * Puts a batch that could not be written back in the queue, combined
+     * with any changes recorded since it was taken.
+     */
+    private synchronized void requeue(PlayerRegistry batch) {
+        batch.forEach(change -> pending.add(change.getName(),
+                change.getWins(), change.getLosses(), change.getBlackjacks()));
+    }
+
+    /**
+     * Adds the logged changes to the store and empties the log.
+     */
+    public void compact() {
+        if (log == null) {
+            return;
+        }
+        try {
+            log.compact(store);
+        } catch (IOException ioe) {
+            ioe.printStackTrace();
+        }
+        lastCompaction = System.currentTimeMillis();
+    }
+
+    private boolean compactionDue() {
+        if (log == null) {
+            return false;
+        }
+        try {
+            return log.size() >= compactBytes || System.currentTimeMillis()
+                    - lastCompaction >= compactMillis;
+        } catch (IOException ioe) {
+            return false;
+        }
+    }
+
+    /**
+     * Writes everything still queued, compacts the log and stops the
+     * background thread.
+     */
+    @Override
+    public void close() {
+        synchronized (this) {
+            closed = true;
+            notifyAll();
+        }
+        try {
+            thread.join();
+        } catch (InterruptedException ie) {
+            Thread.currentThread().interrupt();
+        }
+        flush();
+        compact();
+        synchronized (this) {
+            if (pending.size() > 0) {
+                System.out.println("Could not save the changes of "
+                        + pending.size() + " players");
+            }
+        }
+    }
+
+    /**
+     * The background thread's loop. Waits for the flush interval or for the
+     * queue to fill up, then writes the queued changes.
+     */
+    private void run() {
+        while (true) {
+            synchronized (this) {
+                long deadline = System.currentTimeMillis() + flushMillis;
+                long wait = flushMillis;
+                while (!closed && pending.size() < maxPending && wait > 0) {
+                    try {
+                        wait(wait);
+                    } catch (InterruptedException ie) {
+                        return;
+                    }
+                    wait = deadline - System.currentTimeMillis();
+                }
+                if (closed) {
+                    return;
+                }
+            }
+            try {
+                flush();
+                if (compactionDue()) {
+                    compact();
+                }
+            } catch (RuntimeException re) {
+                re.printStackTrace();
+            }
+        }
+    }
+}
@@ -0,0 +1,288 @@
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RecursiveAction;
+
+/**
+ * A rule comparison plays the same hands under several sets of table rules
+ * at once and reports each set's house edge, and how much it differs from
+ * the first set's, with 95% confidence intervals.
+ *
+ * <p>
+ * Hands are played in the same chunks as the ParallelSimulator, and every
+ * rule set plays each chunk from the same seed, so rule sets with the same
+ * shoe size are dealt the same cards until their rules make the hands play
+ * out differently. Differences are measured chunk by chunk, which cancels
+ * out most of the luck of the cards that both rule sets shared, so a
+ * difference between two rule sets is known far more precisely than either
+ * house edge on its own.
+ *
+ * @author gunnarvonbergen
+ *
+ */
+public class RuleComparison {
+
+    /**
+     * The results of a comparison, one for each rule set in the order they
+     * were given.
+     */
+    public static final class Report {
+        private final TableRules[] rules;
+
+        private final SimulationResult[] results;
+
+        private final double[] differences;
+
+        private final double[] margins;
+
+        private Report(TableRules[] rules, SimulationResult[][] chunks) {
+            this.rules = rules;
+            results = new SimulationResult[rules.length];
+            differences = new double[rules.length];
+            margins = new double[rules.length];
+            for (int i = 0; i < rules.length; i++) {
+                results[i] = new SimulationResult();
+                for (SimulationResult chunk : chunks[i]) {
+                    results[i].merge(chunk);
+                }
+                compare(i, chunks[0], chunks[i]);
+            }
+        }
+
+        /**
+         * Works out the difference in house edge from the first rule set,
+         * and its margin of error from how much it varies between chunks.
+         */
+        private void compare(int index, SimulationResult[] first,
+                SimulationResult[] other) {
+            double hands = results[index].getHands();
+            differences[index] = results[index].getHouseEdge()
+                    - results[0].getHouseEdge();
+            if (first.length < 2 || index == 0) {
+                margins[index] = first.length < 2 ? Double.NaN : 0;
+                return;
+            }
+            double sumSquares = 0;
+            for (int c = 0; c < first.length; c++) {
+                double difference = other[c].getHouseEdge()
+                        - first[c].getHouseEdge() - differences[index];
+                sumSquares += other[c].getHands() * difference * difference;
+            }
+            // The spread is estimated from only a handful of chunks, so the
+            // margin uses Student's t rather than the normal distribution.
+            double variance = sumSquares / (first.length - 1);
+            margins[index] = SimulationResult.t95(first.length - 1)
+                    * Math.sqrt(variance / hands);
+        }
+
+        /**
+         * Returns the number of rule sets compared.
+         *
+         * @return the rule set count as an integer.
+         */
+        public int size() {
+            return rules.length;
+        }
+
+        /**
+         * Returns the rules of one rule set.
+         *
+         * @param index the rule set's position, from 0.
+         * @return the rules.
+         */
+        public TableRules getRules(int index) {
+            return rules[index];
+        }
+
+        /**
+         * Returns the combined result of every hand played under one rule
+         * set.
+         *
+         * @param index the rule set's position, from 0.
+         * @return the rule set's result.
+         */
+        public SimulationResult getResult(int index) {
+            return results[index];
+        }
+
+        /**
+         * Returns how much higher a rule set's house edge is than the first
+         * rule set's.
+         *
+         * @param index the rule set's position, from 0.
+         * @return the difference in house edge.
+         */
+        public double getDifference(int index) {
+            return differences[index];
+        }
+
+        /**
+         * Returns the half width of the 95% confidence interval around the
+         * difference from the first rule set.
+         *
+         * @param index the rule set's position, from 0.
+         * @return the margin of error, or NaN if there were too few chunks
+         *         to tell.
+         */
+        public double getDifferenceMargin(int index) {
+            return margins[index];
+        }
+
+        /**
+         * Prints every rule set's house edge and its difference from the
+         * first rule set, as percentages with their 95% margins.
+         */
+        public void displayReport() {
+            StringBuilder out = new StringBuilder();
+            out.append(String.format("%-37s %17s %17s\n", "Rules",
+                    "House edge", "vs. first"));
+            for (int i = 0; i < rules.length; i++) {
+                out.append(String.format("%-37s %7.3f%% +/-%.3f", rules[i],
+                        results[i].getHouseEdge() * 100,
+                        results[i].getHouseEdgeMargin() * 100));
+                if (i > 0) {
+                    out.append(String.format(" %+7.3f%% +/-%.3f",
+                            differences[i] * 100, margins[i] * 100));
+                }
+                out.append('\n');
+            }
+            System.out.print(out);
+        }
+    }
+
+    private final ForkJoinPool pool;
+
+    private final Strategy strategy;
+
+    private final TableRules[] rules;
+
+    /**
+     * Creates a comparison of the given rule sets that uses every available
+     * core.
+     *
+     * @param strategy the strategy shared by every worker's player.
+     * @param rules    the rule sets, compared against the first.
+     */
+    public RuleComparison(Strategy strategy, TableRules... rules) {
+        this(Runtime.getRuntime().availableProcessors(), strategy, rules);
+    }
+
+    /**
+     * Creates a comparison of the given rule sets with a fixed number of
+     * worker threads. The strategy is shared between workers, so it must not
+     * keep any state.
+     *
+     * @param parallelism the number of worker threads to use.
+     * @param strategy    the strategy shared by every worker's player.
+     * @param rules       the rule sets, compared against the first.
+     */
+    public RuleComparison(int parallelism, Strategy strategy,
+            TableRules... rules) {
+        if (rules.length == 0) {
+            throw new IllegalArgumentException("No rules to compare");
+        }
+        this.pool = new ForkJoinPool(parallelism);
+        this.strategy = strategy;
+        this.rules = rules.clone();
+    }
+
+    /**
+     * Plays the given number of hands under every rule set.
+     *
+     * @param hands      the number of hands played under each rule set.
+     * @param masterSeed the seed every chunk's seed is derived from.
+     * @return the report comparing the rule sets.
+     */
+    public Report run(long hands, long masterSeed) {
+        int chunks = (int) ((hands + ParallelSimulator.CHUNK_SIZE - 1)
+                / ParallelSimulator.CHUNK_SIZE);
+        SimulationResult[][] results =
+                new SimulationResult[rules.length][chunks];
+        pool.invoke(new ChunkTask(hands, masterSeed, results, 0, chunks));
+        return new Report(rules, results);
+    }
+
+    /**
+     * Shuts down the worker threads once the comparison is no longer needed.
+     */
+    public void shutdown() {
+        pool.shutdown();
+    }
+
+    /**
+     * Compares the default rules with standing on soft 17, paying 6 to 5
+     * for a blackjack, and a single deck. Arguments are the number of hands
+     * under each rule set, the master seed and the strategy, in that order.
+     *
+     * @param args optional hand count, master seed and strategy.
+     */
+    public static void main(String[] args) {
+        long hands = args.length > 0 ? Long.parseLong(args[0]) : 10_000_000;
+        long seed = args.length > 1 ? Long.parseLong(args[1]) : 21;
+        Strategy strategy = Simulator
+                .parseStrategy(args.length > 2 ? args[2] : "basic");
+        TableRules standard = TableRules.DEFAULT;
+
+        RuleComparison comparison = new RuleComparison(strategy, standard,
+                standard.withHitSoft17(false),
+                standard.withBlackjackPayout(TableRules.PAYS_6_TO_5),
+                standard.withDecks(1));
+        long start = System.nanoTime();
+        Report report = comparison.run(hands, seed);
+        double seconds = (System.nanoTime() - start) / 1e9;
+        comparison.shutdown();
+
+        report.displayReport();
+        System.out.printf("Played %d hands under %d rule sets in %.2fs\n",
+                hands, report.size(), seconds);
+    }
+
+    /**
+     * Plays a range of chunks under every rule set, splitting the range in
+     * half until only one chunk is left. Each chunk's results are stored in
+     * their own slot, so no result is shared between threads.
+     */
+    private class ChunkTask extends RecursiveAction {
+
+        private static final long serialVersionUID = 1L;
+
+        private final long hands;
+
+        private final long masterSeed;
+
+        private final SimulationResult[][] results;
+
+        private final int firstChunk;
+
+        private final int endChunk;
+
+        ChunkTask(long hands, long masterSeed, SimulationResult[][] results,
+                int firstChunk, int endChunk) {
+            this.hands = hands;
+            this.masterSeed = masterSeed;
+            this.results = results;
+            this.firstChunk = firstChunk;
+            this.endChunk = endChunk;
+        }
+
+        @Override
+        protected void compute() {
+            if (endChunk - firstChunk <= 1) {
+                playChunk(firstChunk);
+                return;
+            }
+            int middle = (firstChunk + endChunk) >>> 1;
+            invokeAll(new ChunkTask(hands, masterSeed, results, firstChunk,
+                    middle), new ChunkTask(hands, masterSeed, results, middle,
+                            endChunk));
+        }
+
+        private void playChunk(int chunk) {
+            long start = (long) chunk * ParallelSimulator.CHUNK_SIZE;
+            long count = Math.min(ParallelSimulator.CHUNK_SIZE, hands - start);
+            long seed = ShuffleRandom.streamSeed(masterSeed, chunk);
+            for (int i = 0; i < rules.length; i++) {
+                results[i][chunk] = new Simulator(seed, strategy, rules[i])
+                        .run(count);
+            }
+        }
+    }
+}
@@ -0,0 +1,120 @@
+/**
+ * Running stats keep the mean and variance of a stream of numbers without
+ * storing them, using Welford's method. Each number updates the mean and the
+ * sum of squared differences from it, which stays accurate however long the
+ * stream is, unlike subtracting a running sum of squares. Stats from separate
+ * streams, such as the chunks of a parallel run, can be merged together.
+ *
+ * @author gunnarvonbergen
+ *
+ */
+public class RunningStats {
+
+    private long count;
+
+    private double mean;
+
+    // The sum of squared differences from the current mean.
+    private double squares;
+
+    /**
+     * Adds a number to the stream.
+     *
+     * @param value the number being added.
+     */
+    public void add(double value) {
+        count++;
+        double delta = value - mean;
+        mean += delta / count;
+        squares += delta * (value - mean);
+    }
+
+    /**
+     * Adds every number from another stream into this one, as if they had
+     * been added here.
+     *
+     * @param other the stats being merged in.
+     */
+    public void merge(RunningStats other) {
+        if (other.count == 0) {
+            return;
+        }
+        long total = count + other.count;
+        double delta = other.mean - mean;
+        mean += delta * other.count / total;
+        squares += other.squares
+                + delta * delta * ((double) count * other.count / total);
+        count = total;
+    }
+
+    /**
+     * Returns the number of numbers added.
+     *
+     * @return the count as a long.
+     */
+    public long getCount() {
+        return count;
+    }
+
+    /**
+     * Returns the average of the numbers added.
+     *
+     * @return the mean, or 0 if nothing was added.
+     */
+    public double getMean() {
+        return mean;
+    }
+
+    /**
+     * Returns the total of the numbers added.
+     *
+     * @return the sum, or 0 if nothing was added.
+     */
+    public double getSum() {
+        return mean * count;
+    }
+
+    /**
+     * Returns the sample variance of the numbers added.
+     *
+     * @return the variance, or 0 with fewer than two numbers.
+     */
+    public double getVariance() {
+        return count < 2 ? 0 : squares / (count - 1);
+    }
+
+    /**
+     * Returns the sample standard deviation of the numbers added.
+     *
+     * @return the standard deviation, or 0 with fewer than two numbers.
+     */
+    public double getStandardDeviation() {
+        return Math.sqrt(getVariance());
+    }
+
+    /**
+     * Returns the half width of the 95% confidence interval around the mean.
+     *
+     * @return the margin of error, so the true mean is within the mean plus
+     *         or minus this 95% of the time, or 0 with fewer than two
+     *         numbers.
+     */
+    public double getMargin() {
+        if (count < 2) {
+            return 0;
+        }
+        return SimulationResult.t95(count - 1) * getStandardDeviation()
+                / Math.sqrt(count);
+    }
+
+    /**
+     * Creates a one line summary of the stats.
+     *
+     * @return a string with the count, mean and standard deviation.
+     */
+    @Override
+    public String toString() {
+        return String.format("%d values: mean %.6f, sd %.6f", count, mean,
+                getStandardDeviation());
+    }
+}
@@ -28,6 +28,19 @@ public interface Scoreboard {
      */
     public void addLoss();
 
+    /**
+     * Adds a blackjack to the relevant object.
+     */
+    public void addBlackjack();
+
+    /**
+     * Adds a win and the blackjack it was won with, as one change.
+     */
+    default void addBlackjackWin() {
+        addWin();
+        addBlackjack();
+    }
+
     /**
      * Retrieves the number of blackjacks.
      * 
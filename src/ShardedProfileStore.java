@@ -0,0 +1,280 @@
+import java.io.File;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardCopyOption;
+import java.util.function.Consumer;
+
+/**
+ * A sharded profile store spreads player profiles over several profile
+ * stores, choosing each player's shard from a hash of their name. Loading or
+ * updating a player only touches that player's shard, so the files, indexes
+ * and locks of every shard stay small however many players there are.
+ *
+ * <p>
+ * The shards of {@code <name>} split into n parts are the profile stores
+ * {@code <name>-0of<n>} to {@code <name>-<n-1>of<n>}, and
+ * {@code <name>.shards} records how many there are. The number of shards
+ * can only be changed offline, while no game is using the profiles, with
+ * {@link #reshard(String, int)}, which copies every profile into a new set
+ * of shards before switching over to them.
+ *
+ * @author gunnarvonbergen
+ *
+ */
+public class ShardedProfileStore implements ProfileStorage {
+
+    private static final int MAGIC = 0x53323153; // "S21S"
+
+    private static final int VERSION = 1;
+
+    private static final int MANIFEST_SIZE = 12;
+
+    private final ProfileStore[] shards;
+
+    /**
+     * Opens the sharded store with the given base name, using the number of
+     * shards saved in its manifest.
+     *
+     * @param baseName the path of the store without extensions.
+     * @throws IOException if the store has not been sharded or its files
+     *                     cannot be opened.
+     */
+    public ShardedProfileStore(String baseName) throws IOException {
+        this(baseName, readShardCount(baseName));
+    }
+
+    /**
+     * Opens the given number of shards, creating any that do not exist yet.
+     */
+    private ShardedProfileStore(String baseName, int shardCount)
+            throws IOException {
+        shards = new ProfileStore[shardCount];
+        try {
+            for (int i = 0; i < shardCount; i++) {
+                shards[i] = new ProfileStore(shardName(baseName, i,
+                        shardCount));
+            }
+        } catch (IOException ioe) {
+            close();
+            throw ioe;
+        }
+    }
+
+    /**
+     * Returns the number of shards.
+     *
+     * @return the shard count as an integer.
+     */
+    public int getShardCount() {
+        return shards.length;
+    }
+
+    /**
+     * Returns the shard a player's profile is saved in.
+     *
+     * @param name       the name of the player.
+     * @param shardCount the number of shards.
+     * @return the number of the shard, from 0 to shardCount - 1.
+     */
+    public static int shardFor(String name, int shardCount) {
+        int h = name.hashCode() * 0x9E3779B1;
+        return Math.floorMod(h ^ (h >>> 16), shardCount);
+    }
+
+    private ProfileStore shard(String name) {
+        return shards[shardFor(name, shards.length)];
+    }
+
+    @Override
+    public Player load(String name) {
+        return shard(name).load(name);
+    }
+
+    @Override
+    public void save(Player player) {
+        shard(player.getName()).save(player);
+    }
+
+    @Override
+    public void add(String name, int wins, int losses, int blackjacks) {
+        shard(name).add(name, wins, losses, blackjacks);
+    }
+
+    @Override
+    public boolean apply(String name, int wins, int losses, int blackjacks,
+            int generation) {
+        return shard(name).apply(name, wins, losses, blackjacks, generation);
+    }
+
+    @Override
+    public void clearLogGenerations() {
+        for (ProfileStore shard : shards) {
+            shard.clearLogGenerations();
+        }
+    }
+
+    @Override
+    public boolean contains(String name) {
+        return shard(name).contains(name);
+    }
+
+    @Override
+    public int size() {
+        int size = 0;
+        for (ProfileStore shard : shards) {
+            size += shard.size();
+        }
+        return size;
+    }
+
+    /**
+     * Passes a new player object for every saved profile to the action, one
+     * shard at a time.
+     *
+     * @param action the action performed on each player.
+     */
+    @Override
+    public void forEach(Consumer<Player> action) {
+        for (ProfileStore shard : shards) {
+            shard.forEach(action);
+        }
+    }
+
+    @Override
+    public void flush() {
+        for (ProfileStore shard : shards) {
+            shard.flush();
+        }
+    }
+
+    /**
+     * Flushes and closes every shard.
+     *
+     * @throws IOException if a shard cannot be closed.
+     */
+    @Override
+    public void close() throws IOException {
+        IOException failure = null;
+        for (ProfileStore shard : shards) {
+            if (shard == null) {
+                continue;
+            }
+            try {
+                shard.close();
+            } catch (IOException ioe) {
+                failure = ioe;
+            }
+        }
+        if (failure != null) {
+            throw failure;
+        }
+    }
+
+    /**
+     * Moves every profile into the given number of shards. Logged changes are
+     * compacted first. The new shards are written and flushed before the
+     * manifest is replaced, so a crash part way leaves the old profiles in
+     * use. Profiles that were never sharded are moved out of the single
+     * profile store. No game may use the profiles while they are resharded.
+     *
+     * @param baseName   the path of the store without extensions.
+     * @param shardCount the new number of shards.
+     * @throws IOException if the profiles cannot be read or written.
+     */
+    public static void reshard(String baseName, int shardCount)
+            throws IOException {
+        if (shardCount < 1) {
+            throw new IllegalArgumentException(
+                    "There must be at least one shard: " + shardCount);
+        }
+        boolean sharded = new File(manifestName(baseName)).exists();
+        int oldCount = sharded ? readShardCount(baseName) : 0;
+        if (oldCount == shardCount) {
+            return;
+        }
+        // Left behind if an earlier reshard to this count crashed.
+        for (int i = 0; i < shardCount; i++) {
+            deleteStore(shardName(baseName, i, shardCount));
+        }
+        try (ProfileStorage old = ProfileStorage.open(baseName);
+                ProfileLog log = new ProfileLog(baseName)) {
+            log.compact(old);
+            try (ShardedProfileStore resharded = new ShardedProfileStore(
+                    baseName, shardCount)) {
+                old.forEach(resharded::save);
+            }
+        }
+        writeShardCount(baseName, shardCount);
+        if (sharded) {
+            for (int i = 0; i < oldCount; i++) {
+                deleteStore(shardName(baseName, i, oldCount));
+            }
+        } else {
+            deleteStore(baseName);
+        }
+    }
+
+    static String manifestName(String baseName) {
+        return baseName + ".shards";
+    }
+
+    private static String shardName(String baseName, int shard,
+            int shardCount) {
+        return baseName + "-" + shard + "of" + shardCount;
+    }
+
+    private static void deleteStore(String baseName) throws IOException {
+        Files.deleteIfExists(Paths.get(baseName + ".dat"));
+        Files.deleteIfExists(Paths.get(baseName + ".idx"));
+    }
+
+    private static int readShardCount(String baseName) throws IOException {
+        Path manifest = Paths.get(manifestName(baseName));
+        ByteBuffer buffer = ByteBuffer.wrap(Files.readAllBytes(manifest));
+        if (buffer.capacity() < MANIFEST_SIZE || buffer.getInt(0) != MAGIC
+                || buffer.getInt(4) != VERSION || buffer.getInt(8) < 1) {
+            throw new IOException(manifest + " is not a shard manifest");
+        }
+        return buffer.getInt(8);
+    }
+
+    /**
+     * Replaces the manifest in one step by writing a new one and moving it
+     * over the old.
+     */
+    private static void writeShardCount(String baseName, int shardCount)
+            throws IOException {
+        ByteBuffer buffer = ByteBuffer.allocate(MANIFEST_SIZE);
+        buffer.putInt(MAGIC).putInt(VERSION).putInt(shardCount);
+        Path manifest = Paths.get(manifestName(baseName));
+        Path written = Paths.get(manifestName(baseName) + ".tmp");
+        Files.write(written, buffer.array());
+        Files.move(written, manifest, StandardCopyOption.REPLACE_EXISTING,
+                StandardCopyOption.ATOMIC_MOVE);
+    }
+
+    /**
+     * Reshards the game's profiles from the command line.
+     *
+     * @param args the base name of the profiles and the new number of shards.
+     */
+    public static void main(String[] args) {
+        if (args.length != 2) {
+            System.out.println("Usage: java ShardedProfileStore <profiles> "
+                    + "<shards>");
+            return;
+        }
+        try {
+            reshard(args[0], Integer.parseInt(args[1]));
+            try (ProfileStorage storage = ProfileStorage.open(args[0])) {
+                System.out.printf("%s now has %d profiles in %s shards.\n",
+                        args[0], storage.size(), args[1]);
+            }
+        } catch (IOException ioe) {
+            ioe.printStackTrace();
+        }
+    }
+}
@@ -0,0 +1,281 @@
+import java.util.ArrayList;
+import java.util.Arrays;
+
+/**
+ * A shoe holds one to eight decks of cards for a multi-deck game of Blackjack.
+ * Instead of removing cards from an array list, the shoe keeps every card's
+ * code in a primitive array and moves a cursor forward as cards are drawn, so
+ * drawing a card never shifts the rest of the shoe. A cut card is placed at a
+ * configurable penetration and the shoe is reshuffled in place, between hands,
+ * once the cut card has been reached.
+ * 
+ * @author gunnarvonbergen
+ *
+ */
+public class Shoe extends Deck {
+
+    private static final long serialVersionUID = 1L;
+
+    /**
+     * The largest number of decks a shoe can hold.
+     */
+    public static final int MAX_DECKS = 8;
+
+    // Card codes (see Card.getCode()) in dealing order.
+    private final byte[] codes;
+
+    // Index of the next card to be dealt.
+    private int next;
+
+    // The number of undealt cards of each point value, kept up to date as
+    // cards are dealt.
+    private final int[] composition = new int[Card.VALUE_COUNT];
+
+    // Index of the cut card. Reaching it triggers a shuffle between hands.
+    private final int cutCard;
+
+    private final double penetration;
+
+    /**
+     * Creates and shuffles a shoe with a randomly chosen seed.
+     * 
+     * @param decks       the number of decks in the shoe, from 1 to 8.
+     * @param penetration the fraction of the shoe dealt before reshuffling.
+     */
+    public Shoe(int decks, double penetration) {
+        this(decks, penetration, new ShuffleRandom());
+    }
+
+    /**
+     * Creates and shuffles a shoe with the deck count and penetration of a
+     * table's rules, using a randomly chosen seed.
+     * 
+     * @param rules the rules of the table the shoe is dealt at.
+     */
+    public Shoe(TableRules rules) {
+        this(rules.getDecks(), rules.getPenetration());
+    }
+
+    /**
+     * Creates and shuffles a shoe with the deck count and penetration of a
+     * table's rules.
+     * 
+     * @param rules the rules of the table the shoe is dealt at.
+     * @param seed  the seed used for shuffling.
+     */
+    public Shoe(TableRules rules, long seed) {
+        this(rules.getDecks(), rules.getPenetration(), seed);
+    }
+
+    /**
+     * Creates and shuffles a shoe.
+     * 
+     * @param decks       the number of decks in the shoe, from 1 to 8.
+     * @param penetration the fraction of the shoe dealt before reshuffling,
+     *                    greater than 0 and at most 1.
+     * @param seed        the seed used for shuffling.
+     * @throws IllegalArgumentException if the deck count or penetration is out
+     *                                  of range.
+     */
+    public Shoe(int decks, double penetration, long seed) {
+        this(decks, penetration, new ShuffleRandom(seed));
+    }
+
+    /**
+     * Creates and shuffles a shoe that shuffles with the given generator.
+     * 
+     * @param decks       the number of decks in the shoe, from 1 to 8.
+     * @param penetration the fraction of the shoe dealt before reshuffling,
+     *                    greater than 0 and at most 1.
+     * @param random      the generator used for shuffling.
+     * @throws IllegalArgumentException if the deck count or penetration is out
+     *                                  of range.
+     */
+    public Shoe(int decks, double penetration, ShuffleRandom random) {
+        super(0, random);
+        if (decks < 1 || decks > MAX_DECKS) {
+            throw new IllegalArgumentException(
+                    "A shoe holds 1 to " + MAX_DECKS + " decks: " + decks);
+        }
+        if (!(penetration > 0 && penetration <= 1)) {
+            throw new IllegalArgumentException(
+                    "Penetration must be between 0 and 1: " + penetration);
+        }
+        this.codes = new byte[decks * Card.DECK_SIZE];
+        for (int i = 0; i < codes.length; i++) {
+            codes[i] = (byte) (i % Card.DECK_SIZE);
+        }
+        this.penetration = penetration;
+        this.cutCard = Math.max(1, (int) (codes.length * penetration));
+        shuffle();
+    }
+
+    /**
+     * Copy constructor. The copy deals the same cards in the same order as the
+     * original from this point on, including after later shuffles.
+     * 
+     * @param other the shoe intended to be copied.
+     */
+    public Shoe(Shoe other) {
+        super(other);
+        this.codes = new byte[other.codes.length];
+        this.cutCard = other.cutCard;
+        this.penetration = other.penetration;
+        copyFrom(other);
+    }
+
+    /**
+     * Moves this shoe to the same place in the same shuffle as another shoe
+     * of the same size, and puts its generator in the same state, so that
+     * both deal the same cards, including after shuffling in the middle of a
+     * hand. Nothing is allocated, so this can be done before every hand to
+     * deal two players the same hand.
+     * 
+     * @param other the shoe being copied.
+     * @throws IllegalArgumentException if the shoes hold different numbers of
+     *                                  decks.
+     */
+    public void copyFrom(Shoe other) {
+        if (other.codes.length != codes.length) {
+            throw new IllegalArgumentException("Cannot copy a "
+                    + other.getDecks() + " deck shoe into a " + getDecks()
+                    + " deck shoe");
+        }
+        System.arraycopy(other.codes, 0, codes, 0, codes.length);
+        next = other.next;
+        System.arraycopy(other.composition, 0, composition, 0,
+                composition.length);
+        getRandom().copyFrom(other.getRandom());
+    }
+
+    /**
+     * Deals the next card in the shoe. If every card has been dealt in the
+     * middle of a hand, the shoe is reshuffled before dealing.
+     * 
+     * @return the card at the current position of the shoe.
+     */
+    @Override
+    public Card draw() {
+        if (next == codes.length) {
+            shuffle();
+        }
+        byte code = codes[next++];
+        composition[Card.valueOfCode(code) - 1]--;
+        return Card.valueOf(code);
+    }
+
+    /**
+     * Shuffles every card back into the shoe with an in-place Fisher-Yates
+     * shuffle and moves the cursor back to the start.
+     */
+    @Override
+    public void shuffle() {
+        ShuffleRandom random = getRandom();
+        for (int i = codes.length - 1; i > 0; i--) {
+            int j = random.nextInt(i + 1);
+            byte temp = codes[i];
+            codes[i] = codes[j];
+            codes[j] = temp;
+        }
+        next = 0;
+        int decks = codes.length / Card.DECK_SIZE;
+        Arrays.fill(composition, 4 * decks);
+        composition[Card.VALUE_COUNT - 1] = 16 * decks;
+    }
+
+    /**
+     * Checks whether the cut card has been reached.
+     * 
+     * @return true if the shoe should be shuffled before the next hand.
+     */
+    public boolean isCutCardReached() {
+        return next >= cutCard;
+    }
+
+    /**
+     * Shuffles the shoe if the cut card has been reached. Should be called
+     * between hands.
+     * 
+     * @return true if the shoe was shuffled.
+     */
+    public boolean shuffleIfNeeded() {
+        if (isCutCardReached()) {
+            shuffle();
+            return true;
+        }
+        return false;
+    }
+
+    /**
+     * Returns the number of cards that have not been dealt.
+     * 
+     * @return the number of cards left in the shoe.
+     */
+    @Override
+    public int getRemainingCards() {
+        return codes.length - next;
+    }
+
+    /**
+     * Returns a new array list holding the cards that have not been dealt, in
+     * dealing order. Changing the list does not change the shoe.
+     * 
+     * @return an array list of the remaining cards.
+     */
+    @Override
+    public ArrayList<Card> getCards() {
+        ArrayList<Card> remaining = new ArrayList<Card>(getRemainingCards());
+        for (int i = next; i < codes.length; i++) {
+            remaining.add(Card.valueOf(codes[i]));
+        }
+        return remaining;
+    }
+
+    /**
+     * Counts the cards that have not been dealt by point value. The counts
+     * are kept as cards are dealt, so this does not look at the cards.
+     * 
+     * @return a new array of Card.VALUE_COUNT counts, where index 0 counts the
+     *         aces and index 9 counts the tens and face cards.
+     */
+    @Override
+    public int[] getComposition() {
+        return composition.clone();
+    }
+
+    /**
+     * Displays all cards that have not been dealt.
+     */
+    @Override
+    public void displayDeck() {
+        CardRenderer.display(getCards());
+    }
+
+    /**
+     * Returns the number of decks in the shoe.
+     * 
+     * @return the deck count as an integer.
+     */
+    public int getDecks() {
+        return codes.length / Card.DECK_SIZE;
+    }
+
+    /**
+     * Returns the fraction of the shoe dealt before the cut card is reached.
+     * 
+     * @return the penetration as a double.
+     */
+    public double getPenetration() {
+        return penetration;
+    }
+
+    /**
+     * Creates a copy of the shoe that will deal the same cards.
+     * 
+     * @return a new shoe in the same state as this one.
+     */
+    @Override
+    public Shoe clone() {
+        return new Shoe(this);
+    }
+}
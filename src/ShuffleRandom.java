@@ -0,0 +1,168 @@
+import java.io.Serializable;
+import java.util.concurrent.ThreadLocalRandom;
+
+/**
+ * A small, fast random number generator used for shuffling decks. It uses the
+ * xoshiro256** algorithm, which has a tiny state that can be copied exactly.
+ * That makes shuffles reproducible from a seed and lets a copied deck replay
+ * the same shuffles as the original. Each generator is meant to be used by a
+ * single thread; independent generators for other threads are created with
+ * split() or forStream().
+ *
+ * @author gunnarvonbergen
+ *
+ */
+public class ShuffleRandom implements Cloneable, Serializable {
+
+    private static final long serialVersionUID = 1L;
+
+    private static final long GOLDEN_GAMMA = 0x9E3779B97F4A7C15L;
+
+    private long s0;
+
+    private long s1;
+
+    private long s2;
+
+    private long s3;
+
+    /**
+     * Creates a generator with a randomly chosen seed.
+     */
+    public ShuffleRandom() {
+        this(ThreadLocalRandom.current().nextLong());
+    }
+
+    /**
+     * Creates a generator from a seed. Generators with the same seed produce
+     * the same numbers.
+     *
+     * @param seed the seed of the generator.
+     */
+    public ShuffleRandom(long seed) {
+        // Expand the seed into four words with SplitMix64, as recommended by
+        // the xoshiro authors, so that similar seeds give unrelated states.
+        s0 = mix(seed += GOLDEN_GAMMA);
+        s1 = mix(seed += GOLDEN_GAMMA);
+        s2 = mix(seed += GOLDEN_GAMMA);
+        s3 = mix(seed + GOLDEN_GAMMA);
+    }
+
+    /**
+     * Copy constructor. The copy produces exactly the same numbers as the
+     * original from this point on.
+     *
+     * @param other the generator intended to be copied.
+     */
+    public ShuffleRandom(ShuffleRandom other) {
+        this.s0 = other.s0;
+        this.s1 = other.s1;
+        this.s2 = other.s2;
+        this.s3 = other.s3;
+    }
+
+    /**
+     * Puts this generator in the same state as another, without creating
+     * anything. From then on both produce the same numbers.
+     *
+     * @param other the generator being copied.
+     */
+    public void copyFrom(ShuffleRandom other) {
+        s0 = other.s0;
+        s1 = other.s1;
+        s2 = other.s2;
+        s3 = other.s3;
+    }
+
+    /**
+     * Derives the seed of one stream from a master seed. Different stream
+     * indexes give unrelated seeds, and the result only depends on the two
+     * arguments, so every worker can create its own generator without sharing
+     * any state.
+     *
+     * @param masterSeed the seed of the whole run.
+     * @param stream     the index of the stream, for example a worker or
+     *                   chunk number.
+     * @return the seed for that stream.
+     */
+    public static long streamSeed(long masterSeed, long stream) {
+        return mix(masterSeed + (stream + 1) * GOLDEN_GAMMA);
+    }
+
+    /**
+     * Creates the generator for one stream of a master seed.
+     *
+     * @param masterSeed the seed of the whole run.
+     * @param stream     the index of the stream.
+     * @return a new generator seeded with streamSeed(masterSeed, stream).
+     */
+    public static ShuffleRandom forStream(long masterSeed, long stream) {
+        return new ShuffleRandom(streamSeed(masterSeed, stream));
+    }
+
+    /**
+     * The SplitMix64 finalizer.
+     */
+    private static long mix(long z) {
+        z = (z ^ (z >>> 30)) * 0xBF58476D1CE4E5B9L;
+        z = (z ^ (z >>> 27)) * 0x94D049BB133111EBL;
+        return z ^ (z >>> 31);
+    }
+
+    /**
+     * Returns the next random 64 bit number.
+     *
+     * @return a uniformly distributed long.
+     */
+    public long nextLong() {
+        long result = Long.rotateLeft(s1 * 5, 7) * 9;
+        long t = s1 << 17;
+        s2 ^= s0;
+        s3 ^= s1;
+        s1 ^= s2;
+        s0 ^= s3;
+        s2 ^= t;
+        s3 = Long.rotateLeft(s3, 45);
+        return result;
+    }
+
+    /**
+     * Returns a random number from 0 (inclusive) to bound (exclusive) without
+     * any bias, using Lemire's multiply and reject method.
+     *
+     * @param bound the upper bound, which must be positive.
+     * @return a uniformly distributed integer below the bound.
+     */
+    public int nextInt(int bound) {
+        long m = (nextLong() >>> 32) * bound;
+        long low = m & 0xFFFFFFFFL;
+        if (low < bound) {
+            long threshold = (0x100000000L - bound) % bound;
+            while (low < threshold) {
+                m = (nextLong() >>> 32) * bound;
+                low = m & 0xFFFFFFFFL;
+            }
+        }
+        return (int) (m >>> 32);
+    }
+
+    /**
+     * Creates a new, independent generator seeded from this one. Useful for
+     * handing a separate generator to another thread.
+     *
+     * @return a new generator.
+     */
+    public ShuffleRandom split() {
+        return new ShuffleRandom(nextLong());
+    }
+
+    /**
+     * Creates a copy that will produce the same numbers as this generator.
+     *
+     * @return a new generator in the same state.
+     */
+    @Override
+    public ShuffleRandom clone() {
+        return new ShuffleRandom(this);
+    }
+}
@@ -0,0 +1,288 @@
+/**
+ * A simulation result holds the outcome counts for a batch of hands played by
+ * the simulator. Counts are kept as longs so that very long runs do not
+ * overflow, and results from separate runs can be merged together.
+ *
+ * <p>
+ * The result also keeps running stats of the units won or lost on each
+ * hand, which give the house edge and how far it could be from the true edge
+ * after this many hands.
+ *
+ * @author gunnarvonbergen
+ *
+ */
+public class SimulationResult {
+
+    /**
+     * The number of standard errors either side of an average that hold its
+     * true value 95% of the time.
+     */
+    public static final double Z_95 = 1.959964;
+
+    // The 97.5th percentiles of Student's t distribution with one to four
+    // degrees of freedom, where the series in t95() is not accurate enough.
+    private static final double[] T_95 = { 12.7062, 4.3027, 3.1824,
+            2.7764 };
+
+    private long hands;
+
+    private long wins;
+
+    private long losses;
+
+    private long pushes;
+
+    // Blackjacks are also counted as wins, matching Player.playHand().
+    private long blackjacks;
+
+    // Units won by the player on each hand, losses counting as -1.
+    private final RunningStats outcomes = new RunningStats();
+
+    /**
+     * Records a hand the player won at even money.
+     *
+     * @param blackjack true if the win came from reaching 21.
+     */
+    public void recordWin(boolean blackjack) {
+        recordWin(blackjack, 1);
+    }
+
+    /**
+     * Records a hand the player won.
+     *
+     * @param blackjack true if the win came from reaching 21.
+     * @param payout    the units won for each unit bet.
+     */
+    public void recordWin(boolean blackjack, double payout) {
+        hands++;
+        wins++;
+        if (blackjack) {
+            blackjacks++;
+        }
+        outcomes.add(payout);
+    }
+
+    /**
+     * Records a hand the player lost.
+     */
+    public void recordLoss() {
+        hands++;
+        losses++;
+        outcomes.add(-1);
+    }
+
+    /**
+     * Records a hand that ended in a push.
+     */
+    public void recordPush() {
+        hands++;
+        pushes++;
+        outcomes.add(0);
+    }
+
+    /**
+     * Adds all of the counts from another result into this one.
+     *
+     * @param other the result being merged in.
+     */
+    public void merge(SimulationResult other) {
+        hands += other.hands;
+        wins += other.wins;
+        losses += other.losses;
+        pushes += other.pushes;
+        blackjacks += other.blackjacks;
+        outcomes.merge(other.outcomes);
+    }
+
+    /**
+     * Returns the number of standard errors either side of an average of a
+     * few samples that hold its true value 95% of the time. An average of a
+     * few samples is less certain than Z_95 allows for, because the spread of
+     * the samples is itself only an estimate, so Student's t distribution is
+     * used. It approaches Z_95 as the samples grow.
+     *
+     * @param degreesOfFreedom one less than the number of samples, at least
+     *                         1.
+     * @return the multiple of the standard error for a 95% interval.
+     */
+    public static double t95(long degreesOfFreedom) {
+        if (degreesOfFreedom < 1) {
+            throw new IllegalArgumentException(
+                    "At least two samples are needed: " + degreesOfFreedom);
+        }
+        if (degreesOfFreedom <= T_95.length) {
+            return T_95[(int) degreesOfFreedom - 1];
+        }
+        // The Cornish-Fisher series for t in terms of the normal quantile,
+        // within 0.0005 from five degrees of freedom up.
+        double z = Z_95;
+        double z2 = z * z;
+        double n = degreesOfFreedom;
+        return z + z * (z2 + 1) / (4 * n)
+                + z * ((5 * z2 + 16) * z2 + 3) / (96 * n * n)
+                + z * (((3 * z2 + 19) * z2 + 17) * z2 - 15) / (384 * n * n * n)
+                + z * ((((79 * z2 + 776) * z2 + 1482) * z2 - 1920) * z2 - 945)
+                        / (92160 * n * n * n * n);
+    }
+
+    /**
+     * Returns the number of hands played.
+     *
+     * @return the hand count as a long.
+     */
+    public long getHands() {
+        return hands;
+    }
+
+    /**
+     * Returns the number of hands won.
+     *
+     * @return the win count as a long.
+     */
+    public long getWins() {
+        return wins;
+    }
+
+    /**
+     * Returns the number of hands lost.
+     *
+     * @return the loss count as a long.
+     */
+    public long getLosses() {
+        return losses;
+    }
+
+    /**
+     * Returns the number of hands that were pushed.
+     *
+     * @return the push count as a long.
+     */
+    public long getPushes() {
+        return pushes;
+    }
+
+    /**
+     * Returns the number of blackjacks.
+     *
+     * @return the blackjack count as a long.
+     */
+    public long getBlackjacks() {
+        return blackjacks;
+    }
+
+    /**
+     * Returns the fraction of hands that were won.
+     *
+     * @return the win rate between 0 and 1.
+     */
+    public double getWinRate() {
+        return rate(wins);
+    }
+
+    /**
+     * Returns the fraction of hands that were lost.
+     *
+     * @return the loss rate between 0 and 1.
+     */
+    public double getLossRate() {
+        return rate(losses);
+    }
+
+    /**
+     * Returns the fraction of hands that were pushed.
+     *
+     * @return the push rate between 0 and 1.
+     */
+    public double getPushRate() {
+        return rate(pushes);
+    }
+
+    /**
+     * Returns the fraction of hands that were blackjacks.
+     *
+     * @return the blackjack rate between 0 and 1.
+     */
+    public double getBlackjackRate() {
+        return rate(blackjacks);
+    }
+
+    /**
+     * Returns the units the player won over every hand, less those lost.
+     *
+     * @return the net result, negative if the player lost money.
+     */
+    public double getNet() {
+        return outcomes.getSum();
+    }
+
+    /**
+     * Returns the house edge: the average fraction of each bet the player
+     * lost.
+     *
+     * @return the house edge, negative if the player came out ahead.
+     */
+    public double getHouseEdge() {
+        return hands == 0 ? 0 : -outcomes.getMean();
+    }
+
+    /**
+     * Returns the standard deviation of a single hand's result.
+     *
+     * @return the sample standard deviation in units, or 0 with fewer than
+     *         two hands.
+     */
+    public double getStandardDeviation() {
+        return outcomes.getStandardDeviation();
+    }
+
+    /**
+     * Returns the half width of the 95% confidence interval around the house
+     * edge.
+     *
+     * @return the margin of error, so the true edge is within the house edge
+     *         plus or minus this 95% of the time.
+     */
+    public double getHouseEdgeMargin() {
+        return outcomes.getMargin();
+    }
+
+    private double rate(long count) {
+        if (hands == 0) {
+            return 0;
+        }
+        return (double) count / hands;
+    }
+
+    /**
+     * Prints a summary of the rates for this result.
+     */
+    public void displayResult() {
+        System.out.println("+------------------------------+");
+        System.out.format("| %-13s %-14d |\n", "Hands:", hands);
+        System.out.println("+--------------+---------------+");
+        System.out.format("| %-13s %-13.4f%% |\n", "Wins:", getWinRate() * 100);
+        System.out.format("| %-13s %-13.4f%% |\n", "Losses:",
+                getLossRate() * 100);
+        System.out.format("| %-13s %-13.4f%% |\n", "Pushes:",
+                getPushRate() * 100);
+        System.out.format("| %-13s %-13.4f%% |\n", "Blackjacks:",
+                getBlackjackRate() * 100);
+        System.out.println("+--------------+---------------+");
+        System.out.format("| %-13s %-13.4f%% |\n", "House edge:",
+                getHouseEdge() * 100);
+        System.out.format("| %-13s %-13.4f%% |\n", "  95% +/-:",
+                getHouseEdgeMargin() * 100);
+        System.out.println("+------------------------------+");
+    }
+
+    /**
+     * Creates a one line summary of the result.
+     *
+     * @return a string with the hand count and outcome counts.
+     */
+    @Override
+    public String toString() {
+        return String.format("%d hands: %d W / %d L / %d P / %d BJ", hands,
+                wins, losses, pushes, blackjacks);
+    }
+}
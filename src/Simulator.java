@@ -0,0 +1,204 @@
+/**
+ * The simulator plays hands of blackjack without any console input or output.
+ * It uses the same Player, Dealer and Deck rules as the terminal game, but the
+ * player's hit/stand decisions are made by a Strategy instead of the console.
+ * Hands are played at a Table, which reuses the player, dealer and shoe from
+ * hand to hand so that very large runs allocate nothing per hand.
+ *
+ * @author gunnarvonbergen
+ *
+ */
+public class Simulator {
+
+    /**
+     * The number of decks in the shoe unless another count is given.
+     */
+    public static final int DEFAULT_DECKS = TableRules.DEFAULT.getDecks();
+
+    /**
+     * The fraction of the shoe dealt before reshuffling unless another
+     * penetration is given.
+     */
+    public static final double DEFAULT_PENETRATION = TableRules.DEFAULT
+            .getPenetration();
+
+    /**
+     * The number of hands played between checks of the margin of error when
+     * running until a margin is reached.
+     */
+    public static final int CHECK_INTERVAL = 10_000;
+
+    private final TableRules rules;
+
+    private final Table table;
+
+    private final Player player = new Player("Simulator", 0, 0, 0);
+
+    /**
+     * Creates a simulator whose player hits until reaching the given total.
+     *
+     * @param seed           the seed used to shuffle the shoe.
+     * @param standThreshold the hand total the player will stand on.
+     */
+    public Simulator(long seed, int standThreshold) {
+        this(seed, new ThresholdStrategy(standThreshold));
+    }
+
+    /**
+     * Creates a simulator whose player follows the given strategy.
+     *
+     * @param seed     the seed used to shuffle the shoe.
+     * @param strategy the strategy making the player's decisions.
+     */
+    public Simulator(long seed, Strategy strategy) {
+        this(seed, strategy, TableRules.DEFAULT);
+    }
+
+    /**
+     * Creates a simulator that deals from a shoe of the given size.
+     *
+     * @param seed        the seed used to shuffle the shoe.
+     * @param strategy    the strategy making the player's decisions.
+     * @param decks       the number of decks in the shoe.
+     * @param penetration the fraction of the shoe dealt before reshuffling.
+     */
+    public Simulator(long seed, Strategy strategy, int decks,
+            double penetration) {
+        this(seed, strategy, TableRules.DEFAULT.withDecks(decks)
+                .withPenetration(penetration));
+    }
+
+    /**
+     * Creates a simulator that plays by the given table rules.
+     *
+     * @param seed     the seed used to shuffle the shoe.
+     * @param strategy the strategy making the player's decisions.
+     * @param rules    the rules of the simulated table.
+     */
+    public Simulator(long seed, Strategy strategy, TableRules rules) {
+        this(new Shoe(rules, seed), strategy, rules);
+    }
+
+    /**
+     * Creates a simulator that deals from the given shoe. A copy of another
+     * simulator's shoe makes this simulator deal the same cards, so two
+     * strategies can be compared on the same hands.
+     *
+     * @param shoe     the shoe the hands are dealt from.
+     * @param strategy the strategy making the player's decisions.
+     * @param rules    the rules the dealer plays by and blackjacks are paid
+     *                 at.
+     */
+    public Simulator(Shoe shoe, Strategy strategy, TableRules rules) {
+        this.rules = rules;
+        this.table = new Table(shoe, rules);
+        player.setStrategy(strategy);
+        player.setGameListener(GameListener.NONE);
+        table.getDealer().setGameListener(GameListener.NONE);
+        table.seat(player);
+    }
+
+    /**
+     * Plays the given number of hands and returns the outcome counts.
+     *
+     * @param hands the number of hands to play.
+     * @return a simulation result holding the outcome of every hand.
+     */
+    public SimulationResult run(long hands) {
+        SimulationResult result = new SimulationResult();
+        for (long i = 0; i < hands; i++) {
+            playHand(result);
+        }
+        return result;
+    }
+
+    /**
+     * Plays hands until the house edge is known to within the given margin,
+     * checking every CHECK_INTERVAL hands. Stopping as soon as the margin is
+     * reached avoids playing more hands than the question needs.
+     *
+     * @param margin   the largest acceptable half width of the 95% confidence
+     *                 interval around the house edge.
+     * @param maxHands the most hands played if the margin is never reached.
+     * @return a simulation result holding the outcome of every hand.
+     */
+    public SimulationResult runUntil(double margin, long maxHands) {
+        SimulationResult result = new SimulationResult();
+        while (result.getHands() < maxHands) {
+            long batch = Math.min(CHECK_INTERVAL,
+                    maxHands - result.getHands());
+            for (long i = 0; i < batch; i++) {
+                playHand(result);
+            }
+            if (result.getHouseEdgeMargin() <= margin) {
+                break;
+            }
+        }
+        return result;
+    }
+
+    /**
+     * Plays a single hand from the shoe and records the outcome. The outcome
+     * is determined by which of the player's stats were changed by
+     * Player.playHand().
+     *
+     * @param result the result the outcome is recorded into.
+     * @return the units the player won on the hand, -1 for a loss.
+     */
+    public double playHand(SimulationResult result) {
+        table.resetForNextHand();
+        int wins = player.getWins();
+        int losses = player.getLosses();
+        int blackjacks = player.getBlackjacks();
+
+        table.playHand();
+
+        if (player.getWins() != wins) {
+            // Only a two card 21 is paid at the blackjack rate.
+            boolean natural = player.getHand().size() == 2
+                    && player.calculateHandValue() == 21;
+            double payout = natural ? rules.getBlackjackPayout() : 1;
+            result.recordWin(player.getBlackjacks() != blackjacks, payout);
+            return payout;
+        } else if (player.getLosses() != losses) {
+            result.recordLoss();
+            return -1;
+        }
+        result.recordPush();
+        return 0;
+    }
+
+    /**
+     * Runs a simulation from the command line. Arguments are the number of
+     * hands, the seed and the strategy, in that order. The strategy is either
+     * "basic" or the total a threshold player stands on.
+     *
+     * @param args optional hand count, seed and strategy.
+     */
+    public static void main(String[] args) {
+        long hands = args.length > 0 ? Long.parseLong(args[0]) : 1_000_000;
+        long seed = args.length > 1 ? Long.parseLong(args[1]) : 21;
+        Strategy strategy = parseStrategy(args.length > 2 ? args[2] : "17");
+
+        long start = System.nanoTime();
+        SimulationResult result = new Simulator(seed, strategy).run(hands);
+        double seconds = (System.nanoTime() - start) / 1e9;
+
+        result.displayResult();
+        System.out.printf("Played %d hands in %.2fs (%.0f hands/s)\n", hands,
+                seconds, hands / seconds);
+    }
+
+    /**
+     * Converts a command line argument into a strategy.
+     *
+     * @param name "basic" for basic strategy, otherwise a stand threshold.
+     * @return the matching strategy.
+     */
+    public static Strategy parseStrategy(String name) {
+        if (name.equalsIgnoreCase("basic")) {
+            return BasicStrategy.INSTANCE;
+        }
+        return new ThresholdStrategy(Integer.parseInt(name));
+    }
+}
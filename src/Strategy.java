@@ -0,0 +1,21 @@
+/**
+ * A strategy decides whether a player hits or stands. Player.playHand()
+ * consults its strategy every time a decision is needed, so the same game
+ * rules can be played by a person at the console or by code in a simulation.
+ * Implementations that are used in simulations should not create any objects
+ * or keep state between calls.
+ * 
+ * @author gunnarvonbergen
+ *
+ */
+public interface Strategy {
+    /**
+     * Decides whether the player should take another card.
+     * 
+     * @param player       the player whose hand is being decided on.
+     * @param dealerUpCard the dealer's first (face up) card, or null if the
+     *                     dealer has not been dealt a card yet.
+     * @return true if the player should hit, false to stand.
+     */
+    public boolean decideToHit(Player player, Card dealerUpCard);
+}
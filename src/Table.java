@@ -0,0 +1,136 @@
+/**
+ * A table owns everything a hand is played with for as long as the table is
+ * open: a seat for one player, the dealer and the shoe. Nothing is created
+ * between hands. resetForNextHand() clears both hands, keeping the lists
+ * their cards were held in, and shuffles the shoe in place if the cut card
+ * was reached, so once the first few hands have sized the lists, hand after
+ * hand is played without allocating anything.
+ *
+ * @author gunnarvonbergen
+ *
+ */
+public class Table {
+
+    private final TableRules rules;
+
+    private final Shoe shoe;
+
+    private final Dealer dealer;
+
+    private Player player;
+
+    /**
+     * Opens a table whose shoe is shuffled with a randomly chosen seed.
+     *
+     * @param rules the rules the table is played by.
+     */
+    public Table(TableRules rules) {
+        this(new Shoe(rules), rules);
+    }
+
+    /**
+     * Opens a table whose shoe is shuffled from the given seed.
+     *
+     * @param rules the rules the table is played by.
+     * @param seed  the seed used to shuffle the shoe.
+     */
+    public Table(TableRules rules, long seed) {
+        this(new Shoe(rules, seed), rules);
+    }
+
+    /**
+     * Opens a table that deals from the given shoe.
+     *
+     * @param shoe  the shoe dealt from for the life of the table.
+     * @param rules the rules the table is played by.
+     */
+    public Table(Shoe shoe, TableRules rules) {
+        this.rules = rules;
+        this.shoe = shoe;
+        this.dealer = new Dealer("Dealer", 0, 0, 0, rules);
+    }
+
+    /**
+     * Seats a player at the table, replacing anyone already seated. The
+     * player's hand is cleared so that they start the next hand fresh.
+     *
+     * @param player the player taking the seat.
+     */
+    public void seat(Player player) {
+        this.player = player;
+        clearPlayer();
+    }
+
+    /**
+     * Gets the table ready for the next hand: both hands are emptied and the
+     * shoe is shuffled if the cut card was reached. Should be called before
+     * every hand.
+     *
+     * @return true if the shoe was shuffled.
+     */
+    public boolean resetForNextHand() {
+        if (player != null) {
+            clearPlayer();
+        }
+        dealer.getHand().clear();
+        dealer.setBusted(false);
+        dealer.setPush(false);
+        dealer.setFirstCardDealt(false);
+        return shoe.shuffleIfNeeded();
+    }
+
+    private void clearPlayer() {
+        player.getHand().clear();
+        player.setBusted(false);
+        player.setPush(false);
+    }
+
+    /**
+     * Plays a hand between the seated player and the dealer. The table
+     * should be reset with resetForNextHand() first.
+     *
+     * @throws IllegalStateException if no one is seated.
+     */
+    public void playHand() {
+        if (player == null) {
+            throw new IllegalStateException("No player is seated");
+        }
+        player.playHand(shoe, dealer);
+    }
+
+    /**
+     * Returns the seated player.
+     *
+     * @return the player, or null if the seat is empty.
+     */
+    public Player getPlayer() {
+        return player;
+    }
+
+    /**
+     * Returns the table's dealer.
+     *
+     * @return the dealer who deals every hand at this table.
+     */
+    public Dealer getDealer() {
+        return dealer;
+    }
+
+    /**
+     * Returns the table's shoe.
+     *
+     * @return the shoe every hand is dealt from.
+     */
+    public Shoe getShoe() {
+        return shoe;
+    }
+
+    /**
+     * Returns the rules the table is played by.
+     *
+     * @return the table's rules.
+     */
+    public TableRules getRules() {
+        return rules;
+    }
+}
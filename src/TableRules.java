@@ -0,0 +1,207 @@
+import java.io.Serializable;
+
+/**
+ * Table rules are the settings a blackjack table is played with: whether the
+ * dealer hits a soft 17, how many decks are in the shoe, how far into the
+ * shoe the cut card is placed, and what a blackjack pays. Rules cannot be
+ * changed once created, so one rules object can be shared by every dealer,
+ * shoe and thread at a table without copying.
+ *
+ * @author gunnarvonbergen
+ *
+ */
+public final class TableRules implements Serializable {
+
+    private static final long serialVersionUID = 1L;
+
+    /**
+     * A blackjack paying 3 to 2.
+     */
+    public static final double PAYS_3_TO_2 = 1.5;
+
+    /**
+     * A blackjack paying 6 to 5.
+     */
+    public static final double PAYS_6_TO_5 = 1.2;
+
+    /**
+     * The rules the game has always been played with: the dealer hits soft
+     * 17, six decks are dealt three quarters of the way through, and a
+     * blackjack pays 3 to 2.
+     */
+    public static final TableRules DEFAULT = new TableRules(true, 6, 0.75,
+            PAYS_3_TO_2);
+
+    private final boolean hitSoft17;
+
+    private final int decks;
+
+    private final double penetration;
+
+    private final double blackjackPayout;
+
+    /**
+     * Creates a set of table rules.
+     *
+     * @param hitSoft17       true if the dealer hits a soft 17 (H17), false
+     *                        if they stand on it (S17).
+     * @param decks           the number of decks in the shoe, from 1 to 8.
+     * @param penetration     the fraction of the shoe dealt before
+     *                        reshuffling, greater than 0 and at most 1.
+     * @param blackjackPayout what a two card 21 wins for each unit bet, such
+     *                        as PAYS_3_TO_2.
+     * @throws IllegalArgumentException if a setting is out of range.
+     */
+    public TableRules(boolean hitSoft17, int decks, double penetration,
+            double blackjackPayout) {
+        if (decks < 1 || decks > Shoe.MAX_DECKS) {
+            throw new IllegalArgumentException(
+                    "A shoe holds 1 to " + Shoe.MAX_DECKS + " decks: " + decks);
+        }
+        if (!(penetration > 0 && penetration <= 1)) {
+            throw new IllegalArgumentException(
+                    "Penetration must be between 0 and 1: " + penetration);
+        }
+        if (!(blackjackPayout > 0)) {
+            throw new IllegalArgumentException(
+                    "A blackjack must pay something: " + blackjackPayout);
+        }
+        this.hitSoft17 = hitSoft17;
+        this.decks = decks;
+        this.penetration = penetration;
+        this.blackjackPayout = blackjackPayout;
+    }
+
+    /**
+     * Checks whether the dealer takes another card.
+     *
+     * @param total the dealer's hand value.
+     * @param soft  true if the hand counts an ace as 11.
+     * @return true if the dealer hits.
+     */
+    public boolean dealerHits(int total, boolean soft) {
+        return total < 17 || (total == 17 && soft && hitSoft17);
+    }
+
+    /**
+     * Checks whether the dealer hits a soft 17.
+     *
+     * @return true for H17, false for S17.
+     */
+    public boolean isHitSoft17() {
+        return hitSoft17;
+    }
+
+    /**
+     * Returns the number of decks in the shoe.
+     *
+     * @return the deck count as an integer.
+     */
+    public int getDecks() {
+        return decks;
+    }
+
+    /**
+     * Returns the fraction of the shoe dealt before reshuffling.
+     *
+     * @return the penetration as a double.
+     */
+    public double getPenetration() {
+        return penetration;
+    }
+
+    /**
+     * Returns what a two card 21 wins for each unit bet.
+     *
+     * @return the blackjack payout, 1.5 for 3 to 2.
+     */
+    public double getBlackjackPayout() {
+        return blackjackPayout;
+    }
+
+    /**
+     * Returns rules that are the same as these except for the soft 17 rule.
+     *
+     * @param value true if the dealer hits a soft 17.
+     * @return the changed rules.
+     */
+    public TableRules withHitSoft17(boolean value) {
+        return new TableRules(value, decks, penetration, blackjackPayout);
+    }
+
+    /**
+     * Returns rules that are the same as these except for the deck count.
+     *
+     * @param value the number of decks in the shoe.
+     * @return the changed rules.
+     */
+    public TableRules withDecks(int value) {
+        return new TableRules(hitSoft17, value, penetration, blackjackPayout);
+    }
+
+    /**
+     * Returns rules that are the same as these except for the penetration.
+     *
+     * @param value the fraction of the shoe dealt before reshuffling.
+     * @return the changed rules.
+     */
+    public TableRules withPenetration(double value) {
+        return new TableRules(hitSoft17, decks, value, blackjackPayout);
+    }
+
+    /**
+     * Returns rules that are the same as these except for the blackjack
+     * payout.
+     *
+     * @param value what a two card 21 wins for each unit bet.
+     * @return the changed rules.
+     */
+    public TableRules withBlackjackPayout(double value) {
+        return new TableRules(hitSoft17, decks, penetration, value);
+    }
+
+    /**
+     * Rules are equal when every setting is the same.
+     *
+     * @param other the object being compared to.
+     * @return true if other is a rules object with the same settings.
+     */
+    @Override
+    public boolean equals(Object other) {
+        if (!(other instanceof TableRules)) {
+            return false;
+        }
+        TableRules rules = (TableRules) other;
+        return rules.hitSoft17 == hitSoft17 && rules.decks == decks
+                && rules.penetration == penetration
+                && rules.blackjackPayout == blackjackPayout;
+    }
+
+    @Override
+    public int hashCode() {
+        int hash = Boolean.hashCode(hitSoft17);
+        hash = hash * 31 + decks;
+        hash = hash * 31 + Double.hashCode(penetration);
+        return hash * 31 + Double.hashCode(blackjackPayout);
+    }
+
+    /**
+     * Describes the rules in the short form used on table signs, such as
+     * "H17, 6 decks, 75% dealt, BJ pays 3:2".
+     *
+     * @return a one line description of the rules.
+     */
+    @Override
+    public String toString() {
+        String payout;
+        if (blackjackPayout == PAYS_3_TO_2) {
+            payout = "3:2";
+        } else if (blackjackPayout == PAYS_6_TO_5) {
+            payout = "6:5";
+        } else {
+            payout = String.format("%.2f:1", blackjackPayout);
+        }
+        return String.format("%s, %d decks, %.0f%% dealt, BJ pays %s",
+                hitSoft17 ? "H17" : "S17", decks, penetration * 100, payout);
+    }
+}
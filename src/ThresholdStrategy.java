@@ -0,0 +1,46 @@
+/**
+ * The threshold strategy keeps hitting until the hand reaches a fixed total,
+ * ignoring the dealer's up card. Standing on 17 mirrors the dealer's own rule.
+ * 
+ * @author gunnarvonbergen
+ *
+ */
+public class ThresholdStrategy implements Strategy {
+
+    private final int standThreshold;
+
+    /**
+     * Creates a strategy that stands once the hand reaches the given total.
+     * 
+     * @param standThreshold the lowest hand total the player stands on.
+     */
+    public ThresholdStrategy(int standThreshold) {
+        this.standThreshold = standThreshold;
+    }
+
+    /**
+     * Hits while the hand total is below the threshold.
+     * 
+     * @param player       the player whose hand is being decided on.
+     * @param dealerUpCard ignored by this strategy.
+     * @return true if the hand total is below the threshold.
+     */
+    @Override
+    public boolean decideToHit(Player player, Card dealerUpCard) {
+        return player.calculateHandValue() < standThreshold;
+    }
+
+    /**
+     * Returns the total this strategy stands on.
+     * 
+     * @return the stand threshold as an integer.
+     */
+    public int getStandThreshold() {
+        return standThreshold;
+    }
+
+    @Override
+    public String toString() {
+        return "Stand on " + standThreshold;
+    }
+}